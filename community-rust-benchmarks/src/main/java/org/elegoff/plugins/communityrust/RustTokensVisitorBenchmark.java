@@ -0,0 +1,91 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.plugins.communityrust;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.elegoff.plugins.communityrust.language.RustLanguage;
+import org.elegoff.rust.benchmarks.Corpus;
+import org.elegoff.rust.benchmarks.ParsedCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.rust.RustLexer;
+import org.sonar.rust.RustVisitorContext;
+
+/**
+ * Highlighting and CPD tokens computation, in the plugin package to record them in a {@link RustFileAnalysis}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RustTokensVisitorBenchmark {
+
+  @Param({Corpus.RUSTC, Corpus.SYNTHETIC})
+  public String corpus;
+
+  private List<RustVisitorContext> contexts;
+  private List<InputFile> inputFiles;
+  private RustTokensVisitor tokensVisitor;
+
+  @Setup
+  public void setUp() {
+    contexts = ParsedCorpus.load(corpus);
+    var context = SensorContextTester.create(Paths.get("."));
+    inputFiles = new ArrayList<>();
+    for (RustVisitorContext visitorContext : contexts) {
+      inputFiles.add(new TestInputFileBuilder(context.module().key(), visitorContext.file().name())
+        .setLanguage(RustLanguage.KEY)
+        .setCharset(StandardCharsets.UTF_8)
+        .initMetadata(visitorContext.file().content())
+        .build());
+    }
+    tokensVisitor = new RustTokensVisitor(context, RustLexer.create(ParsedCorpus.CONFIGURATION));
+  }
+
+  @Benchmark
+  public void scanFile(Blackhole blackhole) {
+    for (int i = 0; i < contexts.size(); i++) {
+      var analysis = new RustFileAnalysis(inputFiles.get(i));
+      tokensVisitor.scanFile(contexts.get(i), analysis);
+      blackhole.consume(analysis);
+    }
+  }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.rust.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.elegoff.rust.checks.CheckList;
+import org.elegoff.rust.checks.RustCheck;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.sonar.rust.RustVisitorContext;
+
+/**
+ * Runs the checks of {@link CheckList}, all of them in turn by default. {@link #main} runs each check on its own, the
+ * {@code check} parameter values being the simple names of the classes of {@link CheckList#getRustChecks()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckBenchmark {
+
+  @Param({Corpus.RUSTC, Corpus.SYNTHETIC})
+  public String corpus;
+
+  public static final String ALL_CHECKS = "all";
+
+  @Param({ALL_CHECKS})
+  public String check;
+
+  private List<RustVisitorContext> contexts;
+  private final List<RustCheck> rustChecks = new ArrayList<>();
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    String[] checks = CheckList.getRustChecks().stream()
+      .map(Class::getSimpleName)
+      .toArray(String[]::new);
+    new Runner(new OptionsBuilder()
+      .parent(new CommandLineOptions(args))
+      .include(CheckBenchmark.class.getSimpleName())
+      .param("check", checks)
+      .build())
+      .run();
+  }
+
+  @Setup
+  public void setUp() throws ReflectiveOperationException {
+    contexts = ParsedCorpus.load(corpus);
+    List<Class<?>> checkClasses = CheckList.getRustChecks().stream()
+      .filter(c -> ALL_CHECKS.equals(check) || c.getSimpleName().equals(check))
+      .collect(Collectors.toList());
+    if (checkClasses.isEmpty()) {
+      throw new IllegalArgumentException("Unknown check: " + check);
+    }
+    for (Class<?> checkClass : checkClasses) {
+      rustChecks.add((RustCheck) checkClass.getDeclaredConstructor().newInstance());
+    }
+  }
+
+  @Benchmark
+  public void scanFile(Blackhole blackhole) {
+    for (RustCheck rustCheck : rustChecks) {
+      for (RustVisitorContext context : contexts) {
+        blackhole.consume(rustCheck.scanFileForIssues(context));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.rust.benchmarks;
+
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.rust.RustVisitorContext;
+import org.sonar.rust.RustVisitorDispatcher;
+import org.sonar.rust.metrics.CommentsVisitor;
+
+/**
+ * Compares the in place scan of {@link CommentsVisitor} with the former computation of the comment lines, which
+ * split the contents of each comment with a regular expression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommentsVisitorBenchmark {
+
+  @Param({Corpus.RUSTC, Corpus.SYNTHETIC})
+  public String corpus;
+
+  private List<RustVisitorContext> contexts;
+  private CommentsVisitor commentsVisitor;
+  private RustVisitorDispatcher dispatcher;
+
+  @Setup
+  public void setUp() {
+    // without the trees, which the visitor does not need, so that only the computation of the comment lines is measured
+    contexts = ParsedCorpus.load(corpus).stream()
+      .map(context -> new RustVisitorContext(context.file(), null, context.tokens()))
+      .collect(Collectors.toList());
+    commentsVisitor = new CommentsVisitor();
+    dispatcher = new RustVisitorDispatcher(List.of(commentsVisitor));
+  }
+
+  @Benchmark
+  public void scan(Blackhole blackhole) {
+    for (RustVisitorContext context : contexts) {
+      dispatcher.scanFile(context);
+      blackhole.consume(commentsVisitor.commentLines());
+    }
+  }
+
+  @Benchmark
+  public void split(Blackhole blackhole) {
+    for (RustVisitorContext context : contexts) {
+      blackhole.consume(splitCommentLines(context.tokens()));
+    }
+  }
+
+  private static Set<Integer> splitCommentLines(List<Token> tokens) {
+    Set<Integer> comments = new HashSet<>();
+    for (int i = 1; i < tokens.size(); i++) {
+      for (Trivia trivia : tokens.get(i).getTrivia()) {
+        if (trivia.isComment()) {
+          String comment = trivia.getToken().getOriginalValue();
+          String contents = comment.length() > 3 ? comment.substring(2, comment.length() - 2) : "";
+          int line = trivia.getToken().getLine();
+          for (String commentLine : contents.split("(\r)?\n|\r", -1)) {
+            if (!isBlank(commentLine)) {
+              comments.add(line);
+            }
+            line++;
+          }
+        }
+      }
+    }
+    return comments;
+  }
+
+  private static boolean isBlank(String line) {
+    for (int i = 0; i < line.length(); i++) {
+      if (Character.isLetterOrDigit(line.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.rust.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Rust sources the benchmarks run over:
+ * <ul>
+ *   <li>{@code rustc}: the rustc test files of the plugin test resources, looked up from the working directory
+ *   or from the {@value #RUSTC_DIRECTORY_PROPERTY} system property;</li>
+ *   <li>{@code synthetic}: generated files of growing size mixing the constructs found in real crates.</li>
+ * </ul>
+ */
+public final class Corpus {
+
+  public static final String RUSTC = "rustc";
+  public static final String SYNTHETIC = "synthetic";
+  public static final String RUSTC_DIRECTORY_PROPERTY = "communityrust.benchmarks.rustc";
+
+  private static final String RUSTC_DIRECTORY = "community-rust-plugin/src/test/resources/rustc";
+  private static final int[] SYNTHETIC_SIZES = {10, 100, 500};
+
+  private Corpus() {
+  }
+
+  public static List<CorpusFile> load(String name) {
+    if (RUSTC.equals(name)) {
+      return rustc();
+    }
+    if (SYNTHETIC.equals(name)) {
+      return synthetic();
+    }
+    throw new IllegalArgumentException("Unknown corpus: " + name);
+  }
+
+  private static List<CorpusFile> rustc() {
+    Path directory = rustcDirectory();
+    try (Stream<Path> paths = Files.walk(directory)) {
+      List<CorpusFile> files = new ArrayList<>();
+      for (Path path : paths.filter(p -> p.toString().endsWith(".rs")).sorted().collect(Collectors.toList())) {
+        String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        files.add(new CorpusFile(directory.relativize(path).toString(), content, path.toUri()));
+      }
+      return files;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read the rustc corpus from " + directory, e);
+    }
+  }
+
+  private static Path rustcDirectory() {
+    String configured = System.getProperty(RUSTC_DIRECTORY_PROPERTY);
+    if (configured != null) {
+      return Paths.get(configured);
+    }
+    for (Path candidate : List.of(Paths.get(RUSTC_DIRECTORY), Paths.get("..", RUSTC_DIRECTORY))) {
+      if (Files.isDirectory(candidate)) {
+        return candidate;
+      }
+    }
+    throw new IllegalStateException("Unable to find " + RUSTC_DIRECTORY + ", run from the project root or set -D"
+      + RUSTC_DIRECTORY_PROPERTY);
+  }
+
+  private static List<CorpusFile> synthetic() {
+    List<CorpusFile> files = new ArrayList<>();
+    for (int size : SYNTHETIC_SIZES) {
+      String name = "synthetic_" + size + ".rs";
+      files.add(new CorpusFile(name, SyntheticSource.generate(size), URI.create("file:///" + name)));
+    }
+    return files;
+  }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.rust.benchmarks;
+
+import java.net.URI;
+import org.sonar.rust.RustFile;
+
+public class CorpusFile implements RustFile {
+  private final String name;
+  private final String content;
+  private final URI uri;
+
+  CorpusFile(String name, String content, URI uri) {
+    this.name = name;
+    this.content = content;
+    this.uri = uri;
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public String content() {
+    return content;
+  }
+
+  @Override
+  public URI uri() {
+    return uri;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.rust.benchmarks;
+
+import com.sonar.sslr.api.AstNode;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.rust.RustGrammar;
+import org.sonar.rust.RustParserConfiguration;
+import org.sonar.rust.RustParserPool;
+import org.sonar.rust.RustSourceParser;
+import org.sonar.sslr.parser.LexerlessGrammar;
+
+/**
+ * Time spent before the first file can be parsed, measured once per freshly started JVM as in an IDE or a short CI
+ * analysis. Run with {@code -bm avgt -wi 3 -i 5 -f 1} to measure the same steps once the JVM is warm.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class GrammarBenchmark {
+
+  private static final RustParserConfiguration CONFIGURATION = RustParserConfiguration.builder()
+    .setCharset(StandardCharsets.UTF_8)
+    .build();
+  private static final char[] SOURCE = "fn main() {\n    println!(\"Hello, world!\");\n}\n".toCharArray();
+
+  @Benchmark
+  public LexerlessGrammar buildGrammar() {
+    return RustGrammar.create().build();
+  }
+
+  @Benchmark
+  public RustSourceParser createParser() {
+    return RustSourceParser.create(CONFIGURATION);
+  }
+
+  @Benchmark
+  public AstNode firstFile() {
+    return new RustParserPool(CONFIGURATION).parse(SOURCE);
+  }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.rust.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.sonar.rust.RustLexer;
+import org.sonar.rust.RustParserConfiguration;
+import org.sonar.rust.RustSourceParser;
+import org.sonar.rust.RustSourceTokenizer;
+import org.sonar.rust.RustVisitorContext;
+
+/**
+ * Visitor contexts of a corpus, parsed and lexed upfront so that visitor benchmarks only measure the visit.
+ */
+public final class ParsedCorpus {
+
+  public static final RustParserConfiguration CONFIGURATION = RustParserConfiguration.builder()
+    .setCharset(StandardCharsets.UTF_8)
+    .build();
+
+  private ParsedCorpus() {
+  }
+
+  public static List<RustVisitorContext> load(String name) {
+    RustSourceParser parser = RustSourceParser.create(CONFIGURATION);
+    RustSourceTokenizer lexer = RustLexer.create(CONFIGURATION);
+    List<RustVisitorContext> contexts = new ArrayList<>();
+    for (CorpusFile file : Corpus.load(name)) {
+      contexts.add(new RustVisitorContext(file, parser.parse(file.content()), lexer.tokenize(file.content())));
+    }
+    return contexts;
+  }
+
+}
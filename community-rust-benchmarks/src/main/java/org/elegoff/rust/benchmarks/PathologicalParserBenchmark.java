@@ -0,0 +1,72 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.rust.benchmarks;
+
+import com.sonar.sslr.api.AstNode;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.rust.RustParserConfiguration;
+import org.sonar.rust.RustSourceParser;
+
+/**
+ * Parses a single construct chained or nested {@code depth} times, see {@link PathologicalSource}: the time should
+ * grow linearly with the depth.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathologicalParserBenchmark {
+
+  @Param({PathologicalSource.METHOD_CHAIN, PathologicalSource.CLOSURES, PathologicalSource.BLOCKS})
+  public String shape;
+
+  @Param({"16", "32", "64"})
+  public int depth;
+
+  private String source;
+  private RustSourceParser parser;
+
+  @Setup
+  public void setUp() {
+    source = PathologicalSource.generate(shape, depth);
+    parser = RustSourceParser.create(RustParserConfiguration.builder().setCharset(StandardCharsets.UTF_8).build());
+  }
+
+  @Benchmark
+  public AstNode parse() {
+    return parser.parse(source);
+  }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.rust.benchmarks;
+
+/**
+ * Generates functions made of a single construct nested or chained a given number of times, the shapes on which a
+ * backtracking grammar rule makes the parsing time grow with the depth instead of the length of the source.
+ */
+final class PathologicalSource {
+
+  static final String METHOD_CHAIN = "methodChain";
+  static final String CLOSURES = "closures";
+  static final String BLOCKS = "blocks";
+
+  private static final String[] CHAIN_LINKS = {".call_%d(a, %d)", ".field_%d", "?", "[%d]"};
+  private static final String[][] BLOCKS_OPEN_CLOSE = {
+    {"{ ", " }"},
+    {"if c { ", " }"},
+    {"loop { ", " }"},
+    {"unsafe { ", " }"},
+    {"match c { _ => { ", " } }"},
+    {"while c { ", " }"}};
+
+  private PathologicalSource() {
+  }
+
+  static String generate(String shape, int depth) {
+    StringBuilder sb = new StringBuilder("fn pathological() {\n    ");
+    if (METHOD_CHAIN.equals(shape)) {
+      methodChain(sb, depth);
+    } else if (CLOSURES.equals(shape)) {
+      closures(sb, depth);
+    } else if (BLOCKS.equals(shape)) {
+      blocks(sb, depth);
+    } else {
+      throw new IllegalArgumentException("Unknown shape: " + shape);
+    }
+    return sb.append("\n}\n").toString();
+  }
+
+  /**
+   * {@code let x = value.call_0(a, 0).field_1?[3].call_4(a, 4)...;}
+   */
+  private static void methodChain(StringBuilder sb, int depth) {
+    sb.append("let x = value");
+    for (int i = 0; i < depth; i++) {
+      String link = CHAIN_LINKS[i % CHAIN_LINKS.length];
+      sb.append(String.format(link, i, i));
+    }
+    sb.append(';');
+  }
+
+  /**
+   * {@code let x = v.map(|a0| { v.map(|a1| { ... a9 + 1 ... }) });}
+   */
+  private static void closures(StringBuilder sb, int depth) {
+    sb.append("let x = ");
+    for (int i = 0; i < depth; i++) {
+      sb.append("v.map(|a").append(i).append("| { ");
+    }
+    sb.append('a').append(depth - 1).append(" + 1");
+    for (int i = 0; i < depth; i++) {
+      sb.append(" })");
+    }
+    sb.append(';');
+  }
+
+  /**
+   * {@code { if c { loop { unsafe { ... let y = 1; ... } } } }}
+   */
+  private static void blocks(StringBuilder sb, int depth) {
+    for (int i = 0; i < depth; i++) {
+      sb.append(BLOCKS_OPEN_CLOSE[i % BLOCKS_OPEN_CLOSE.length][0]).append("let y").append(i).append(" = ").append(i).append("; ");
+    }
+    sb.append("y0");
+    for (int i = depth - 1; i >= 0; i--) {
+      sb.append(BLOCKS_OPEN_CLOSE[i % BLOCKS_OPEN_CLOSE.length][1]);
+    }
+  }
+
+}
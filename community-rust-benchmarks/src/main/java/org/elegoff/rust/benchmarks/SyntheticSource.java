@@ -0,0 +1,97 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.rust.benchmarks;
+
+/**
+ * Generates a Rust module of a given number of units, each made of a struct, its implementation, free functions
+ * and a test, so that the generated source grows linearly and exercises the grammar rules of real code.
+ */
+final class SyntheticSource {
+
+  private SyntheticSource() {
+  }
+
+  static String generate(int units) {
+    StringBuilder sb = new StringBuilder("//! Generated benchmark source\n\nuse std::collections::HashMap;\nuse std::fmt;\n\n");
+    for (int i = 0; i < units; i++) {
+      unit(sb, i);
+    }
+    return sb.toString();
+  }
+
+  private static void unit(StringBuilder sb, int i) {
+    String type = "Item" + i;
+    sb.append("/// A generated structure\n")
+      .append("#[derive(Debug, Clone, PartialEq)]\n")
+      .append("pub struct ").append(type).append("<'a, T: Clone + fmt::Debug> {\n")
+      .append("    name: &'a str,\n")
+      .append("    values: Vec<T>,\n")
+      .append("    index: HashMap<String, usize>,\n")
+      .append("}\n\n")
+      .append("impl<'a, T: Clone + fmt::Debug> ").append(type).append("<'a, T> {\n")
+      .append("    pub fn new(name: &'a str) -> Self {\n")
+      .append("        ").append(type).append(" { name, values: Vec::new(), index: HashMap::new() }\n")
+      .append("    }\n\n")
+      .append("    pub fn push(&mut self, key: &str, value: T) -> Option<usize> {\n")
+      .append("        if self.index.contains_key(key) {\n")
+      .append("            return None;\n")
+      .append("        }\n")
+      .append("        let position = self.values.len();\n")
+      .append("        self.values.push(value);\n")
+      .append("        self.index.insert(key.to_string(), position);\n")
+      .append("        Some(position)\n")
+      .append("    }\n\n")
+      .append("    /* the lookup goes through the index */\n")
+      .append("    pub fn get(&self, key: &str) -> Result<&T, String> {\n")
+      .append("        match self.index.get(key) {\n")
+      .append("            Some(&position) if position < self.values.len() => Ok(&self.values[position]),\n")
+      .append("            Some(_) => Err(format!(\"{} is out of date\", key)),\n")
+      .append("            None => Err(String::from(\"missing\")),\n")
+      .append("        }\n")
+      .append("    }\n")
+      .append("}\n\n")
+      .append("pub fn compute_").append(i).append("(input: &[i64], factor: i64) -> i64 {\n")
+      .append("    let mut total = 0;\n")
+      .append("    for (position, value) in input.iter().enumerate() {\n")
+      .append("        total += if position % 2 == 0 { value * factor } else { -value + (factor << 2) };\n")
+      .append("    }\n")
+      .append("    let mut count = 0u32;\n")
+      .append("    while count < 10 && total > 0 {\n")
+      .append("        total = (total - 1) / 2;\n")
+      .append("        count += 1;\n")
+      .append("    }\n")
+      .append("    let adjust = |x: i64| -> i64 { x.abs().min(").append(i).append(") };\n")
+      .append("    input.iter().map(|v| adjust(*v)).filter(|v| *v > 0).fold(total, |acc, v| acc + v)\n")
+      .append("}\n\n")
+      .append("#[cfg(test)]\n")
+      .append("mod tests_").append(i).append(" {\n")
+      .append("    use super::*;\n\n")
+      .append("    #[test]\n")
+      .append("    fn test_compute() {\n")
+      .append("        let data = [1, 2, 3, 4];\n")
+      .append("        assert_eq!(compute_").append(i).append("(&data, 0), compute_").append(i).append("(&data, 0));\n")
+      .append("        let mut item: ").append(type).append("<u8> = ").append(type).append("::new(\"test\");\n")
+      .append("        assert!(item.push(\"a\", 1).is_some());\n")
+      .append("    }\n")
+      .append("}\n\n");
+  }
+
+}
@@ -23,6 +23,7 @@ package org.elegoff.rust.checks;
 import com.sonar.sslr.api.AstNode;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
+import org.sonar.rust.RustFileContent;
 
 @Rule(key = "LineLength")
 public class LineLengthCheck extends RustCheck {
@@ -37,14 +38,17 @@ public class LineLengthCheck extends RustCheck {
 
   @Override
   public void visitFile(AstNode astNode) {
-    String[] lines = getContext().file().content().split("\\r?\\n");
-    for (int i = 0; i < lines.length; i++) {
-      int length = lines[i].length();
-      if (length > maximumLineLength) {
-        addLineIssue(
-          "Split this " + length + " characters long line (which is greater than " + maximumLineLength + " authorized).",
-          i + 1);
-      }
+    RustFileContent content = getContext().fileContent();
+    for (int line = 1; line <= content.lineCount(); line++) {
+      checkLine(line, content.lineLength(line));
+    }
+  }
+
+  private void checkLine(int line, int length) {
+    if (length > maximumLineLength) {
+      addLineIssue(
+        "Split this " + length + " characters long line (which is greater than " + maximumLineLength + " authorized).",
+        line);
     }
   }
 
@@ -32,8 +32,23 @@ public class RustCheck extends RustVisitor {
   private final List<Issue> issues = new ArrayList<>();
 
   public List<Issue> scanFileForIssues(RustVisitorContext context) {
-    issues.clear();
+    clearIssues();
     scanFile(context);
+    return issues();
+  }
+
+  /**
+   * Drops the issues of the previous file, to be called before a file is scanned by a
+   * {@link org.sonar.rust.RustVisitorDispatcher}.
+   */
+  public void clearIssues() {
+    issues.clear();
+  }
+
+  /**
+   * Issues raised since the last {@link #clearIssues()}, kept once the context is released at the end of the scan.
+   */
+  public List<Issue> issues() {
     return Collections.unmodifiableList(new ArrayList<>(issues));
   }
 
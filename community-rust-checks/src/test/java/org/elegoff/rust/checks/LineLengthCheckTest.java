@@ -36,4 +36,11 @@ class LineLengthCheckTest {
     check.maximumLineLength = 119;
     RustCheckVerifier.verify(new File("src/test/resources/checks/line_length_119.rs"), check);
   }
+
+  @Test
+  void windowsLineBreaks() {
+    LineLengthCheck check = new LineLengthCheck();
+    check.maximumLineLength = 119;
+    RustCheckVerifier.verify(new File("src/test/resources/checks/line_length_crlf.rs"), check);
+  }
 }
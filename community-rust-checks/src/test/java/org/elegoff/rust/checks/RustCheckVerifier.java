@@ -20,9 +20,7 @@
  */
 package org.elegoff.rust.checks;
 
-import com.sonar.sslr.api.Grammar;
 import com.sonar.sslr.api.RecognitionException;
-import com.sonar.sslr.impl.Parser;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
@@ -32,8 +30,8 @@ import java.nio.file.Files;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.sonar.rust.RustFile;
-import org.sonar.rust.RustParser;
 import org.sonar.rust.RustParserConfiguration;
+import org.sonar.rust.RustSourceParser;
 import org.sonar.rust.RustVisitorContext;
 import org.sonarsource.analyzer.commons.checks.verifier.SingleFileVerifier;
 
@@ -61,7 +59,7 @@ public class RustCheckVerifier {
       .setCharset(StandardCharsets.UTF_8)
       .build();
 
-    Parser<Grammar> parser = RustParser.create(conf);
+    RustSourceParser parser = RustSourceParser.create(conf);
     TestRustFile RustFile = new TestRustFile(file, StandardCharsets.UTF_8);
     RustVisitorContext context;
     try {
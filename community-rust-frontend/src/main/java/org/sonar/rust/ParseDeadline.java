@@ -0,0 +1,69 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import java.time.Duration;
+import org.sonar.sslr.internal.vm.Machine;
+import org.sonar.sslr.internal.vm.NativeExpression;
+
+/**
+ * Grammar expression matching the empty string and aborting the parse once the deadline is over. It is part of
+ * {@link RustGrammar#SPC}, which is tried between any two tokens, and only reads the clock every
+ * {@link #CHECK_INTERVAL} executions.
+ */
+final class ParseDeadline extends NativeExpression {
+
+  private static final int CHECK_INTERVAL = 4096;
+
+  private final Duration timeout;
+  private long deadline;
+  private int countdown;
+
+  ParseDeadline(Duration timeout) {
+    this.timeout = timeout;
+  }
+
+  /**
+   * Starts the deadline of a parse started at the given {@link System#nanoTime()}, which is the start of the parse of
+   * the whole file when a file is parsed in several parts, for the parts to share its timeout.
+   */
+  void start(long startTime) {
+    deadline = startTime + timeout.toNanos();
+    countdown = CHECK_INTERVAL;
+  }
+
+  @Override
+  public void execute(Machine machine) {
+    if (--countdown == 0) {
+      countdown = CHECK_INTERVAL;
+      if (System.nanoTime() - deadline > 0) {
+        throw new RustParseTimeoutException(timeout);
+      }
+    }
+    machine.jump(1);
+  }
+
+  @Override
+  public String toString() {
+    return "ParseDeadline";
+  }
+
+}
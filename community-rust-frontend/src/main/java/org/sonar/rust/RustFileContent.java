@@ -0,0 +1,129 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import java.util.Arrays;
+
+/**
+ * Content of a file, decoded once and shared by everything analysing the file, along with the offsets of its lines.
+ * As for the lexer, lines end with {@code \n}, {@code \r\n} or {@code \r}.
+ */
+public final class RustFileContent {
+
+  private final String text;
+  // characters of the text, given to the parser and the tokenizer, copied on first use
+  private char[] chars;
+  // offset of the first character of each line, computed on first use
+  private int[] lineStarts;
+  private int lineCount;
+
+  public RustFileContent(String text) {
+    this.text = text;
+  }
+
+  public String text() {
+    return text;
+  }
+
+  /**
+   * Characters of the text, shared by all callers, which must not modify them.
+   */
+  public char[] chars() {
+    if (chars == null) {
+      chars = text.toCharArray();
+    }
+    return chars;
+  }
+
+  public int lineCount() {
+    lineStarts();
+    return lineCount;
+  }
+
+  /**
+   * Offset of the first character of the given line, lines starting at 1.
+   */
+  public int lineStart(int line) {
+    checkLine(line);
+    return lineStarts()[line - 1];
+  }
+
+  /**
+   * Offset following the last character of the given line, its line break excluded.
+   */
+  public int lineEnd(int line) {
+    checkLine(line);
+    int start = lineStarts()[line - 1];
+    if (line == lineCount) {
+      return text.length();
+    }
+    int end = lineStarts[line];
+    if (text.charAt(end - 1) == '\n') {
+      end--;
+    }
+    if (end > start && text.charAt(end - 1) == '\r') {
+      end--;
+    }
+    return end;
+  }
+
+  public int lineLength(int line) {
+    return lineEnd(line) - lineStart(line);
+  }
+
+  /**
+   * Line of the character at the given offset, lines starting at 1.
+   */
+  public int line(int offset) {
+    if (offset < 0 || offset > text.length()) {
+      throw new IndexOutOfBoundsException("Offset " + offset + " is outside of the content");
+    }
+    int index = Arrays.binarySearch(lineStarts(), 0, lineCount, offset);
+    return index >= 0 ? (index + 1) : -(index + 1);
+  }
+
+  private void checkLine(int line) {
+    if (line < 1 || line > lineCount()) {
+      throw new IndexOutOfBoundsException("Line " + line + " is outside of the content");
+    }
+  }
+
+  private int[] lineStarts() {
+    if (lineStarts == null) {
+      int[] starts = new int[16];
+      int count = 1;
+      int length = text.length();
+      for (int i = 0; i < length; i++) {
+        char c = text.charAt(i);
+        if (c == '\n' || (c == '\r' && (i + 1 == length || text.charAt(i + 1) != '\n'))) {
+          if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+          }
+          starts[count++] = i + 1;
+        }
+      }
+      lineCount = count;
+      lineStarts = starts;
+    }
+    return lineStarts;
+  }
+
+}
@@ -21,7 +21,6 @@
 package org.sonar.rust;
 
 import com.sonar.sslr.api.GenericTokenType;
-import org.apache.commons.lang3.ArrayUtils;
 import org.sonar.rust.api.RustKeyword;
 import org.sonar.rust.api.RustPunctuator;
 import org.sonar.rust.api.RustTokenType;
@@ -29,6 +28,8 @@ import org.sonar.sslr.grammar.GrammarRuleKey;
 import org.sonar.sslr.grammar.LexerlessGrammarBuilder;
 
 import java.util.Arrays;
+import java.util.Collections;
+import javax.annotation.Nullable;
 
 public enum RustGrammar implements GrammarRuleKey {
   ABI,
@@ -340,8 +341,16 @@ public enum RustGrammar implements GrammarRuleKey {
   WILDCARD_PATTERN;
 
   private static final String DOLLAR_CRATE_REGEX = "^\\$crate$";
+  private static final String BLOCK_KEYWORD_REGEX = "(?:async(?:\\s++move)?|loop|unsafe)\\s*+\\{";
 
   public static LexerlessGrammarBuilder create() {
+    return create(null);
+  }
+
+  /**
+   * @param deadline checked each time whitespace is matched, null when parsing is not time limited
+   */
+  static LexerlessGrammarBuilder create(@Nullable ParseDeadline deadline) {
     LexerlessGrammarBuilder b = LexerlessGrammarBuilder.create();
 
     b.rule(COMPILATION_UNIT).is(SPC, b.zeroOrMore(INNER_ATTRIBUTE, SPC),
@@ -351,7 +360,7 @@ public enum RustGrammar implements GrammarRuleKey {
 
     punctuators(b);
     keywords(b);
-    literals(b);
+    literals(b, deadline);
     lexical(b);
     types(b);
     attributes(b);
@@ -374,12 +383,13 @@ public enum RustGrammar implements GrammarRuleKey {
     return b.regexp("/\\*[\\s\\S]*?\\*\\/");
   }
 
-  private static void literals(LexerlessGrammarBuilder b) {
-    b.rule(SPC).is(
+  private static void literals(LexerlessGrammarBuilder b, @Nullable ParseDeadline deadline) {
+    Object trivia = b.sequence(
       b.skippedTrivia(whitespace(b)),
       b.zeroOrMore(
         b.commentTrivia(b.firstOf(inlineComment(b), multilineComment(b))),
         b.skippedTrivia(whitespace(b))));
+    b.rule(SPC).is(deadline == null ? trivia : b.sequence(deadline, trivia));
 
     b.rule(EOF).is(b.token(GenericTokenType.EOF, b.endOfInput())).skip();
 
@@ -462,41 +472,24 @@ public enum RustGrammar implements GrammarRuleKey {
     String[] punctuatorsExceptDollar = RustGrammar.getPunctuatorsExcept(punctuators, "$");
     String[] punctuatorsExceptSemi = RustGrammar.getPunctuatorsExcept(punctuators, ";");
 
-    Arrays.sort(punctuators);
-    ArrayUtils.reverse(punctuators);
-    b.rule(PUNCTUATION).is(
-      b.firstOf(
-        punctuators[0],
-        punctuators[1],
-        ArrayUtils.subarray(punctuators, 2, punctuators.length)));
-    Arrays.sort(punctuatorsExceptDollar);
-    ArrayUtils.reverse(punctuatorsExceptDollar);
-    Arrays.sort(punctuatorsExceptSemi);
-    ArrayUtils.reverse(punctuatorsExceptSemi);
-    b.rule(PUNCTUATION_EXCEPT_DOLLAR).is(
-      b.firstOf(
-        punctuatorsExceptDollar[0],
-        punctuatorsExceptDollar[1],
-        ArrayUtils.subarray(punctuatorsExceptDollar, 2, punctuatorsExceptDollar.length)));
-    b.rule(PUNCTUATION_EXCEPT_SEMI).is(
-      b.firstOf(
-        punctuatorsExceptSemi[0],
-        punctuatorsExceptSemi[1],
-        ArrayUtils.subarray(punctuatorsExceptSemi, 2, punctuatorsExceptSemi.length)));
+    b.rule(PUNCTUATION).is(longestFirst(b, punctuators));
+    b.rule(PUNCTUATION_EXCEPT_DOLLAR).is(longestFirst(b, punctuatorsExceptDollar));
+    b.rule(PUNCTUATION_EXCEPT_SEMI).is(longestFirst(b, punctuatorsExceptSemi));
   }
 
   private static void keywords(LexerlessGrammarBuilder b) {
     for (RustKeyword tokenType : RustKeyword.values()) {
       b.rule(tokenType).is(tokenType.getValue(), SPC);
     }
-    String[] keywords = RustKeyword.keywordValues();
-    Arrays.sort(keywords);
-    ArrayUtils.reverse(keywords);
-    b.rule(KEYWORD).is(
-      b.firstOf(
-        keywords[0],
-        keywords[1],
-        ArrayUtils.subarray(keywords, 2, keywords.length)));
+    b.rule(KEYWORD).is(longestFirst(b, RustKeyword.keywordValues()));
+  }
+
+  /**
+   * Choice between the given values, tried in reverse alphabetical order so that a value is tried before its prefixes.
+   */
+  private static Object longestFirst(LexerlessGrammarBuilder b, String[] values) {
+    Arrays.sort(values, Collections.reverseOrder());
+    return b.firstOf(values[0], values[1], Arrays.copyOfRange(values, 2, values.length, Object[].class));
   }
 
   private static Object whitespace(LexerlessGrammarBuilder b) {
@@ -1200,75 +1193,43 @@ public enum RustGrammar implements GrammarRuleKey {
         b.sequence(RustPunctuator.DOT, SPC, PATH_EXPR_SEGMENT, SPC, "(", SPC, b.optional(CALL_PARAMS, SPC), ")", SPC, EXPRESSION_TERM),
         b.sequence(RustPunctuator.DOT, SPC, TUPLE_INDEX, SPC, EXPRESSION_TERM),
         b.sequence(RustPunctuator.DOT, SPC, IDENTIFIER, SPC, EXPRESSION_TERM),
-        b.sequence("(", SPC, b.optional(CALL_PARAMS), SPC, ")", SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.QUESTION, SPC, EXPRESSION_TERM),
-        b.sequence(RustKeyword.KW_AS, SPC, TYPE_NO_BOUNDS, SPC, EXPRESSION_TERM),
-        b.sequence("[", SPC, EXPRESSION, SPC, "]", SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.OROR, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.ANDAND, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.NE, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.GT, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.LT, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.GE, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.LE, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.PLUS, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.MINUS, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.STAR, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.SLASH, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.PERCENT, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.AND, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.OR, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.CARET, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.SHL, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.SHR, SPC, EXPRESSION, SPC, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.EQ, SPC, EXPRESSION, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.PLUSEQ, SPC, EXPRESSION, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.MINUSEQ, SPC, EXPRESSION, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.STAREQ, SPC, EXPRESSION, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.SLASHEQ, SPC, EXPRESSION, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.PERCENTEQ, SPC, EXPRESSION, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.ANDEQ, SPC, EXPRESSION, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.OREQ, SPC, EXPRESSION, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.CARETEQ, SPC, EXPRESSION, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.SHLEQ, SPC, EXPRESSION, EXPRESSION_TERM),
-        b.sequence(RustPunctuator.SHREQ, SPC, EXPRESSION, EXPRESSION_TERM),
+        b.sequence("(", SPC, b.optional(CALL_PARAMS), SPC, ")", b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.QUESTION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustKeyword.KW_AS, SPC, TYPE_NO_BOUNDS, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence("[", SPC, EXPRESSION, SPC, "]", b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.OROR, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.ANDAND, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.NE, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.GT, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.LT, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.GE, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.LE, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.PLUS, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.MINUS, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.STAR, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.SLASH, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.PERCENT, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.AND, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.OR, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.CARET, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.SHL, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.SHR, SPC, EXPRESSION, b.optional(SPC, EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.EQ, SPC, EXPRESSION, b.optional(EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.PLUSEQ, SPC, EXPRESSION, b.optional(EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.MINUSEQ, SPC, EXPRESSION, b.optional(EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.STAREQ, SPC, EXPRESSION, b.optional(EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.SLASHEQ, SPC, EXPRESSION, b.optional(EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.PERCENTEQ, SPC, EXPRESSION, b.optional(EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.ANDEQ, SPC, EXPRESSION, b.optional(EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.OREQ, SPC, EXPRESSION, b.optional(EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.CARETEQ, SPC, EXPRESSION, b.optional(EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.SHLEQ, SPC, EXPRESSION, b.optional(EXPRESSION_TERM)),
+        b.sequence(RustPunctuator.SHREQ, SPC, EXPRESSION, b.optional(EXPRESSION_TERM)),
         b.sequence(RustPunctuator.DOT, RustKeyword.KW_AWAIT, b.nextNot(IDENTIFIER)),
         b.sequence(RustPunctuator.DOT, PATH_EXPR_SEGMENT, SPC, "(", SPC, b.optional(CALL_PARAMS, SPC), ")"),
         b.sequence(RustPunctuator.DOT, TUPLE_INDEX),
         b.sequence(RustPunctuator.DOT, IDENTIFIER),
-        b.sequence("(", SPC, b.optional(CALL_PARAMS), SPC, ")"),
-        RustPunctuator.QUESTION,
-        b.sequence(RustKeyword.KW_AS, SPC, TYPE_NO_BOUNDS),
-        b.sequence("[", SPC, EXPRESSION, SPC, "]"),
-        b.sequence(RustPunctuator.OROR, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.ANDAND, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.EQEQ, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.NE, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.GT, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.LT, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.GE, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.LE, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.PLUS, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.MINUS, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.STAR, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.SLASH, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.PERCENT, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.AND, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.OR, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.CARET, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.SHL, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.SHR, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.EQ, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.PLUSEQ, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.MINUSEQ, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.STAREQ, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.SLASHEQ, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.PERCENTEQ, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.ANDEQ, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.OREQ, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.CARETEQ, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.SHLEQ, SPC, EXPRESSION),
-        b.sequence(RustPunctuator.SHREQ, SPC, EXPRESSION)));
+        b.sequence(RustPunctuator.EQEQ, SPC, EXPRESSION)));
 
     b.rule(EXPRESSION_TERM_EXCEPT_STRUCT).is(
       b.firstOf(
@@ -1280,75 +1241,44 @@ public enum RustGrammar implements GrammarRuleKey {
         b.sequence(RustPunctuator.DOT, PATH_EXPR_SEGMENT, SPC, "(", SPC, b.optional(CALL_PARAMS, SPC), ")", SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
         b.sequence(RustPunctuator.DOT, TUPLE_INDEX, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
         b.sequence(RustPunctuator.DOT, IDENTIFIER, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence("(", SPC, b.optional(CALL_PARAMS), SPC, ")", SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.QUESTION, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustKeyword.KW_AS, SPC, TYPE_NO_BOUNDS, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
+        b.sequence("(", SPC, b.optional(CALL_PARAMS), SPC, ")", b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.QUESTION, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustKeyword.KW_AS, SPC, TYPE_NO_BOUNDS, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
         b.sequence("[", SPC, SCRUTINEE, SPC, "]", SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.OROR, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.ANDAND, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.NE, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.GT, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.LT, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.GE, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.LE, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.PLUS, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.MINUS, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.STAR, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.SLASH, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.PERCENT, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.AND, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.OR, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.CARET, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.SHL, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.SHR, SPC, SCRUTINEE, SPC, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.EQ, SPC, SCRUTINEE, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.PLUSEQ, SPC, SCRUTINEE, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.MINUSEQ, SPC, SCRUTINEE, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.STAREQ, SPC, SCRUTINEE, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.SLASHEQ, SPC, SCRUTINEE, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.PERCENTEQ, SPC, SCRUTINEE, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.ANDEQ, SPC, SCRUTINEE, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.OREQ, SPC, SCRUTINEE, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.CARETEQ, SPC, SCRUTINEE, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.SHLEQ, SPC, SCRUTINEE, EXPRESSION_TERM_EXCEPT_STRUCT),
-        b.sequence(RustPunctuator.SHREQ, SPC, SCRUTINEE, EXPRESSION_TERM_EXCEPT_STRUCT),
+        b.sequence(RustPunctuator.OROR, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.ANDAND, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.NE, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.GT, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.LT, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.GE, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.LE, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.PLUS, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.MINUS, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.STAR, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.SLASH, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.PERCENT, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.AND, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.OR, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.CARET, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.SHL, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.SHR, SPC, SCRUTINEE, b.optional(SPC, EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.EQ, SPC, SCRUTINEE, b.optional(EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.PLUSEQ, SPC, SCRUTINEE, b.optional(EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.MINUSEQ, SPC, SCRUTINEE, b.optional(EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.STAREQ, SPC, SCRUTINEE, b.optional(EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.SLASHEQ, SPC, SCRUTINEE, b.optional(EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.PERCENTEQ, SPC, SCRUTINEE, b.optional(EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.ANDEQ, SPC, SCRUTINEE, b.optional(EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.OREQ, SPC, SCRUTINEE, b.optional(EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.CARETEQ, SPC, SCRUTINEE, b.optional(EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.SHLEQ, SPC, SCRUTINEE, b.optional(EXPRESSION_TERM_EXCEPT_STRUCT)),
+        b.sequence(RustPunctuator.SHREQ, SPC, SCRUTINEE, b.optional(EXPRESSION_TERM_EXCEPT_STRUCT)),
         b.sequence(RustPunctuator.DOT, RustKeyword.KW_AWAIT),
         b.sequence(RustPunctuator.DOT, PATH_EXPR_SEGMENT, SPC, "(", SPC, b.optional(CALL_PARAMS, SPC), ")"),
         b.sequence(RustPunctuator.DOT, TUPLE_INDEX),
         b.sequence(RustPunctuator.DOT, IDENTIFIER),
-        b.sequence("(", SPC, b.optional(CALL_PARAMS), SPC, ")"),
-        RustPunctuator.QUESTION,
-        b.sequence(RustKeyword.KW_AS, SPC, TYPE_NO_BOUNDS),
         b.sequence("[", SPC, EXPRESSION, SPC, "]"),
-        b.sequence(RustPunctuator.OROR, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.ANDAND, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.EQEQ, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.NE, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.GT, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.LT, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.GE, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.LE, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.PLUS, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.MINUS, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.STAR, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.SLASH, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.PERCENT, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.AND, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.OR, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.CARET, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.SHL, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.SHR, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.EQ, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.PLUSEQ, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.MINUSEQ, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.STAREQ, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.SLASHEQ, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.PERCENTEQ, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.ANDEQ, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.OREQ, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.CARETEQ, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.SHLEQ, SPC, SCRUTINEE),
-        b.sequence(RustPunctuator.SHREQ, SPC, SCRUTINEE)));
+        b.sequence(RustPunctuator.EQEQ, SPC, SCRUTINEE)));
 
     b.rule(EXPRESSION_WITHOUT_BLOCK).is(b.zeroOrMore(OUTER_ATTRIBUTE, SPC),
       b.firstOf(
@@ -1356,23 +1286,24 @@ public enum RustGrammar implements GrammarRuleKey {
         b.sequence(BOX_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
         b.sequence(CONTINUE_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
         b.sequence(EXPRESSION_WITH_BLOCK, b.oneOrMore(SPC, EXPRESSION_TERM)),
-
-        b.sequence(LITERAL_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
-        b.sequence(CLOSURE_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
-        b.sequence(RANGE_TO_INCLUSIVE_EXPR, b.zeroOrMore(SPC, EXPRESSION_TERM)),
-        b.sequence(RANGE_TO_EXPR, b.zeroOrMore(SPC, EXPRESSION_TERM)),
-        b.sequence(RANGE_FULL_EXPR, b.zeroOrMore(SPC, EXPRESSION_TERM)),
-        b.sequence(BORROW_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
-        b.sequence(DEREFERENCE_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
-        b.sequence(NEGATION_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
-        b.sequence(MACRO_INVOCATION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
-        b.sequence(RETURN_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
-        b.sequence(STRUCT_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
-        b.sequence(PATH_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
-
-        b.sequence(GROUPED_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
-        b.sequence(ARRAY_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
-        b.sequence(TUPLE_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM))));
+        // keeps the memoized block expression from being evicted by a path named after its keyword
+        b.sequence(b.nextNot(b.regexp(BLOCK_KEYWORD_REGEX)), b.firstOf(
+          b.sequence(LITERAL_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
+          b.sequence(CLOSURE_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
+          b.sequence(RANGE_TO_INCLUSIVE_EXPR, b.zeroOrMore(SPC, EXPRESSION_TERM)),
+          b.sequence(RANGE_TO_EXPR, b.zeroOrMore(SPC, EXPRESSION_TERM)),
+          b.sequence(RANGE_FULL_EXPR, b.zeroOrMore(SPC, EXPRESSION_TERM)),
+          b.sequence(BORROW_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
+          b.sequence(DEREFERENCE_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
+          b.sequence(NEGATION_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
+          b.sequence(MACRO_INVOCATION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
+          b.sequence(RETURN_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
+          b.sequence(STRUCT_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
+          b.sequence(PATH_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
+
+          b.sequence(GROUPED_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
+          b.sequence(ARRAY_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM)),
+          b.sequence(TUPLE_EXPRESSION, b.zeroOrMore(SPC, EXPRESSION_TERM))))));
 
     b.rule(EXPRESSION_WITH_BLOCK).is(b.zeroOrMore(OUTER_ATTRIBUTE, SPC),
       b.firstOf(
@@ -1538,9 +1469,9 @@ public enum RustGrammar implements GrammarRuleKey {
   private static void array(LexerlessGrammarBuilder b) {
     b.rule(ARRAY_EXPRESSION).is("[", SPC, b.optional(ARRAY_ELEMENTS, SPC), SPC, "]");
 
-    b.rule(ARRAY_ELEMENTS).is(b.firstOf(
-      b.sequence(SPC, EXPRESSION, SPC, RustPunctuator.SEMI, SPC, EXPRESSION),
-      b.sequence(SPC, EXPRESSION, SPC, b.zeroOrMore(RustPunctuator.COMMA, SPC, EXPRESSION), b.optional(RustPunctuator.COMMA, SPC))));
+    b.rule(ARRAY_ELEMENTS).is(SPC, EXPRESSION, SPC, b.firstOf(
+      b.sequence(RustPunctuator.SEMI, SPC, EXPRESSION),
+      b.sequence(b.zeroOrMore(RustPunctuator.COMMA, SPC, EXPRESSION), b.optional(RustPunctuator.COMMA, SPC))));
 
     b.rule(INDEX_EXPRESSION).is(EXPRESSION, SPC, "[", SPC, EXPRESSION, SPC, "]");
 
@@ -1669,6 +1600,7 @@ public enum RustGrammar implements GrammarRuleKey {
     b.rule(STATEMENTS).is(
 
       b.firstOf(
+        // statements are parsed once, whether a trailing expression follows them or not
         b.sequence(b.oneOrMore(
             b.firstOf(
               b.sequence(RustPunctuator.SEMI, SPC),
@@ -1678,21 +1610,11 @@ public enum RustGrammar implements GrammarRuleKey {
               b.sequence(ITEM, SPC),
               b.sequence(LET_STATEMENT, SPC),
               b.sequence(MACRO_INVOCATION_SEMI, SPC))),
-          SPC, b.firstOf(
+          b.optional(SPC, b.firstOf(
             b.sequence(EXPRESSION_WITHOUT_BLOCK, b.nextNot(SPC, RustPunctuator.SEMI)),
             b.sequence(EXPRESSION_WITH_BLOCK, SPC, EXPRESSION_TERM, b.nextNot(SPC, RustPunctuator.SEMI))
 
-          )),
-
-        b.oneOrMore(
-          b.firstOf(
-            b.sequence(RustPunctuator.SEMI, SPC),
-            b.sequence(EXPRESSION_WITHOUT_BLOCK, SPC, RustPunctuator.SEMI, SPC),
-            b.sequence(EXPRESSION_WITH_BLOCK, b.nextNot(SPC, RustPunctuator.DOT), b.optional(SPC, RustPunctuator.SEMI), SPC),
-            b.sequence(MACRO_INVOCATION, SPC, EXPRESSION_TERM),
-            b.sequence(ITEM, SPC),
-            b.sequence(LET_STATEMENT, SPC),
-            b.sequence(MACRO_INVOCATION_SEMI, SPC))),
+          ))),
 
         b.sequence(EXPRESSION_WITH_BLOCK, SPC, EXPRESSION_TERM, b.nextNot(SPC, RustPunctuator.SEMI)),
         b.sequence(EXPRESSION_WITHOUT_BLOCK, b.nextNot(SPC, RustPunctuator.SEMI))
@@ -1803,8 +1725,8 @@ public enum RustGrammar implements GrammarRuleKey {
       NEVER_TYPE,
       RAW_POINTER_TYPE,
       REFERENCE_TYPE,
-      ARRAY_TYPE,
       SLICE_TYPE,
+      ARRAY_TYPE,
       INFERRED_TYPE,
       QUALIFIED_PATH_IN_TYPE
 
@@ -1820,8 +1742,8 @@ public enum RustGrammar implements GrammarRuleKey {
       NEVER_TYPE,
       RAW_POINTER_TYPE,
       REFERENCE_TYPE,
-      ARRAY_TYPE,
       SLICE_TYPE,
+      ARRAY_TYPE,
       INFERRED_TYPE,
       QUALIFIED_PATH_IN_TYPE
 
@@ -1881,7 +1803,7 @@ public enum RustGrammar implements GrammarRuleKey {
       b.regexp("^crate$"), b.regexp(DOLLAR_CRATE_REGEX), IDENTIFIER));
 
     b.rule(PATH_IN_EXPRESSION).is(
-      b.optional(SPC, RustPunctuator.PATHSEP, SPC),
+      b.optional(b.next(b.regexp("[ \t\n\r/:]")), SPC, RustPunctuator.PATHSEP, SPC),
       PATH_EXPR_SEGMENT,
       b.zeroOrMore(b.sequence(SPC, RustPunctuator.PATHSEP, SPC, PATH_EXPR_SEGMENT)));
 
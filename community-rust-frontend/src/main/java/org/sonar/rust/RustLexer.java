@@ -50,8 +50,11 @@ public enum RustLexer implements GrammarRuleKey {
     return b;
   }
 
-  public static ParserAdapter<LexerlessGrammar> create(RustParserConfiguration conf) {
-    return new ParserAdapter<>(conf.getCharset(), create().build());
+  /**
+   * Lexer producing the same tokens as the {@link #TOKENS} rule, with the {@link RustTokenizer} rather than the grammar.
+   */
+  public static RustSourceTokenizer create(RustParserConfiguration conf) {
+    return new RustSourceTokenizer(conf.getCharset());
   }
 
   public static ParserAdapter<LexerlessGrammar> create(RustParserConfiguration conf, GrammarRuleKey root) {
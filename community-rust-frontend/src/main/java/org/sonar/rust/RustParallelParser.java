@@ -0,0 +1,202 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.Token;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Parses the {@link TopLevelItem top-level items} of large files in parallel. The items are grouped into spans of
+ * consecutive items, each span being parsed as a compilation unit of its own on a pool of threads owned by the parser,
+ * and the statements of the spans are then gathered into a single {@link RustGrammar#COMPILATION_UNIT}, having the
+ * same statements and tokens as the one of the whole file. The spans share the parse timeout of the file.
+ * <p>
+ * Each span is preceded by as many line breaks and spaces as there are lines and columns before it in the file, so
+ * that its tokens get their positions in the file. When a span does not parse, because the file does not or because
+ * its items are not delimited as the grammar does, it is parsed again together with its neighbours, the trees of the
+ * other spans being kept. Once the parse fails, the spans not parsed yet are cancelled. Instances are thread-safe.
+ */
+public final class RustParallelParser implements AutoCloseable {
+
+  // below, the cost of parsing the span is not worth a task
+  static final int MIN_SPAN_LENGTH = 16 * 1024;
+  private static final int SPANS_PER_THREAD = 4;
+
+  private final RustParserPool parser;
+  private final ForkJoinPool pool;
+
+  public RustParallelParser(RustParserPool parser, int threads) {
+    this(parser, new ForkJoinPool(threads, forkJoinPool -> {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+      thread.setName("rust-parser-" + thread.getPoolIndex());
+      return thread;
+    }, null, false));
+  }
+
+  RustParallelParser(RustParserPool parser, ForkJoinPool pool) {
+    this.parser = parser;
+    this.pool = pool;
+  }
+
+  /**
+   * Same as {@link RustParserPool#parse(char[])} of the characters of the given content.
+   *
+   * @param tokens tokens of the content, as produced by the {@link RustTokenizer}
+   */
+  public AstNode parse(RustFileContent content, List<Token> tokens) {
+    return parse(content, tokens, System.nanoTime());
+  }
+
+  /**
+   * Same as {@link #parse(RustFileContent, List)}, the timeout being counted from the given {@link System#nanoTime()}.
+   */
+  public AstNode parse(RustFileContent content, List<Token> tokens, long startTime) {
+    int[] ends = spanEnds(content, tokens);
+    if (ends.length < 2) {
+      return parser.parse(content.chars(), startTime);
+    }
+    int[] starts = new int[ends.length];
+    List<ForkJoinTask<AstNode>> tasks = new ArrayList<>(ends.length);
+    for (int i = 0; i < ends.length; i++) {
+      starts[i] = i == 0 ? 0 : ends[i - 1];
+      int start = starts[i];
+      int end = ends[i];
+      tasks.add(pool.submit(() -> parseSpan(content, start, end, startTime)));
+    }
+    try {
+      List<AstNode> trees = new ArrayList<>(tasks.size());
+      // start of the last tree, which may be the one of several spans
+      int lastStart = 0;
+      int i = 0;
+      while (i < tasks.size()) {
+        try {
+          trees.add(tasks.get(i).join());
+          lastStart = starts[i];
+          i++;
+        } catch (RecognitionException e) {
+          // the items at the boundaries of the span may not be delimited as the grammar does, so the span is parsed
+          // again with its neighbours, the parse failing if they do not parse either
+          int start = trees.isEmpty() ? starts[i] : lastStart;
+          if (!trees.isEmpty()) {
+            trees.remove(trees.size() - 1);
+          }
+          int last = Math.min(i + 1, tasks.size() - 1);
+          tasks.get(last).cancel(false);
+          trees.add(parseSpan(content, start, ends[last], startTime));
+          lastStart = start;
+          i = last + 1;
+        }
+      }
+      return compilationUnit(trees);
+    } finally {
+      // a no-op for the spans already parsed
+      tasks.forEach(task -> task.cancel(false));
+    }
+  }
+
+  /**
+   * End offsets of the spans, the last one being the end of the file.
+   */
+  private int[] spanEnds(RustFileContent content, List<Token> tokens) {
+    int length = content.text().length();
+    int spanLength = Math.max(MIN_SPAN_LENGTH, length / (pool.getParallelism() * SPANS_PER_THREAD));
+    List<TopLevelItem> items = TopLevelItem.of(content, tokens);
+    int[] ends = new int[items.size() + 1];
+    int count = 0;
+    int start = 0;
+    for (TopLevelItem item : items) {
+      if (item.end - start >= spanLength && length - item.end >= MIN_SPAN_LENGTH) {
+        ends[count++] = item.end;
+        start = item.end;
+      }
+    }
+    ends[count++] = length;
+    return Arrays.copyOf(ends, count);
+  }
+
+  /**
+   * Line breaks and spaces preceding the span starting at the given offset, for its first character to be at the same
+   * line and column as in the file.
+   */
+  private static int padding(RustFileContent content, int start) {
+    int line = content.line(start);
+    return line - 1 + start - content.lineStart(line);
+  }
+
+  /**
+   * Parses the characters between the given offsets, the indexes of the nodes being the ones in the file.
+   */
+  private AstNode parseSpan(RustFileContent content, int start, int end, long startTime) {
+    int padding = padding(content, start);
+    char[] span = new char[padding + end - start];
+    int line = content.line(start);
+    Arrays.fill(span, 0, line - 1, '\n');
+    Arrays.fill(span, line - 1, padding, ' ');
+    content.text().getChars(start, end, span, padding);
+    AstNode tree = parser.parse(span, startTime);
+    int shift = start - padding;
+    Deque<AstNode> nodes = new ArrayDeque<>();
+    nodes.push(tree);
+    while (!nodes.isEmpty()) {
+      AstNode node = nodes.pop();
+      node.setFromIndex(node.getFromIndex() + shift);
+      node.setToIndex(node.getToIndex() + shift);
+      node.getChildren().forEach(nodes::push);
+    }
+    return tree;
+  }
+
+  private static AstNode compilationUnit(List<AstNode> trees) {
+    AstNode first = trees.get(0);
+    AstNode last = trees.get(trees.size() - 1);
+    var compilationUnit = new AstNode(first.getType(), first.getName(), first.getToken());
+    compilationUnit.setFromIndex(first.getFromIndex());
+    compilationUnit.setToIndex(last.getToIndex());
+    for (AstNode tree : trees) {
+      // copied first, addChild changing the parent of the children
+      for (AstNode child : new ArrayList<>(tree.getChildren())) {
+        if (tree == last || !child.is(GenericTokenType.EOF)) {
+          compilationUnit.addChild(child);
+        }
+      }
+    }
+    return compilationUnit;
+  }
+
+  /**
+   * Stops the threads of the parser, once no more files are parsed.
+   */
+  @Override
+  public void close() {
+    pool.shutdown();
+  }
+
+}
@@ -20,17 +20,55 @@
  */
 package org.sonar.rust;
 
+import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.Token;
 import com.sonar.sslr.impl.Parser;
-import org.sonar.sslr.parser.ParserAdapter;
+import com.sonar.sslr.impl.matcher.RuleDefinition;
+import java.io.File;
+import java.util.List;
 
 public final class RustParser {
 
   private RustParser() {
   }
 
+  /**
+   * SSLR parser backed by a {@link RustSourceParser}, which the analysis uses directly to also parse character arrays.
+   */
   public static Parser<Grammar> create(RustParserConfiguration conf) {
-    return new ParserAdapter(conf.getCharset(), RustGrammar.create().build());
+    return new SourceParserAdapter(RustSourceParser.create(conf));
+  }
+
+  private static final class SourceParserAdapter extends Parser<Grammar> {
+
+    private final RustSourceParser parser;
+
+    SourceParserAdapter(RustSourceParser parser) {
+      super(parser.grammar());
+      this.parser = parser;
+    }
+
+    @Override
+    public AstNode parse(String source) {
+      return parser.parse(source);
+    }
+
+    @Override
+    public AstNode parse(File file) {
+      return parser.parse(file);
+    }
+
+    @Override
+    public AstNode parse(List<Token> tokens) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public RuleDefinition getRootRule() {
+      throw new UnsupportedOperationException();
+    }
+
   }
 
 }
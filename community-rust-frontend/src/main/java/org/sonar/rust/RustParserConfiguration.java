@@ -21,15 +21,17 @@
 package org.sonar.rust;
 
 import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.Objects;
 
 public class RustParserConfiguration {
 
   private final Charset charset;
+  private final Duration parseTimeout;
 
   private RustParserConfiguration(Builder builder) {
     this.charset = builder.charset;
-
+    this.parseTimeout = builder.parseTimeout;
   }
 
   public static Builder builder() {
@@ -40,9 +42,35 @@ public class RustParserConfiguration {
     return charset;
   }
 
+  /**
+   * Time after which {@link RustParser} gives up parsing a file with a {@link RustParseTimeoutException},
+   * {@link Duration#ZERO} when parsing is not limited.
+   */
+  public Duration getParseTimeout() {
+    return parseTimeout;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    RustParserConfiguration that = (RustParserConfiguration) o;
+    return Objects.equals(charset, that.charset) && parseTimeout.equals(that.parseTimeout);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(charset, parseTimeout);
+  }
+
   public static final class Builder {
 
     private Charset charset = null;
+    private Duration parseTimeout = Duration.ZERO;
 
     private Builder() {
     }
@@ -56,6 +84,11 @@ public class RustParserConfiguration {
       return this;
     }
 
+    public Builder setParseTimeout(Duration parseTimeout) {
+      this.parseTimeout = Objects.requireNonNull(parseTimeout, "parseTimeout cannot be null");
+      return this;
+    }
+
     public RustParserConfiguration build() {
       Objects.requireNonNull(charset, "charset is mandatory and cannot be left null");
       return new RustParserConfiguration(this);
@@ -0,0 +1,115 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import com.sonar.sslr.api.AstNode;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Parsers of a configuration, shared by the files of an analysis so that the grammar is only built again when more
+ * files are parsed at the same time than before. The pool is owned by the analysis which creates it, so that its
+ * parsers are released with it in long-running hosts such as SonarLint. A grammar cannot be used by two threads at once, its regular
+ * expressions and its {@link ParseDeadline} being stateful, so each parse borrows a parser from the pool and gives it
+ * back once done. Instances are thread-safe.
+ */
+public final class RustParserPool {
+
+  private final Supplier<RustSourceParser> factory;
+  private final Queue<RustSourceParser> idle = new ConcurrentLinkedQueue<>();
+  // building of the first parser, started at most once by warmUp()
+  @Nullable
+  private volatile CompletableFuture<Void> warmUp;
+
+  public RustParserPool(RustParserConfiguration conf) {
+    this(() -> RustSourceParser.create(conf));
+  }
+
+  RustParserPool(Supplier<RustSourceParser> factory) {
+    this.factory = factory;
+  }
+
+  /**
+   * Starts building a first parser in the background, for the grammar to be ready once the first file is parsed,
+   * unless a parser is already available.
+   */
+  public synchronized void warmUp() {
+    if (warmUp == null && idle.isEmpty()) {
+      warmUp = CompletableFuture.runAsync(() -> idle.add(factory.get()));
+    }
+  }
+
+  /**
+   * Same as {@link RustSourceParser#parse(char[])}, with a parser which is not used by any other thread.
+   */
+  public AstNode parse(char[] source) {
+    RustSourceParser parser = borrow();
+    try {
+      return parser.parse(source);
+    } finally {
+      idle.add(parser);
+    }
+  }
+
+  /**
+   * Same as {@link #parse(char[])}, the timeout being counted from the given {@link System#nanoTime()}.
+   */
+  public AstNode parse(char[] source, long startTime) {
+    RustSourceParser parser = borrow();
+    try {
+      return parser.parse(source, startTime);
+    } finally {
+      idle.add(parser);
+    }
+  }
+
+  private RustSourceParser borrow() {
+    RustSourceParser parser = idle.poll();
+    return parser == null ? newParser() : parser;
+  }
+
+  private RustSourceParser newParser() {
+    CompletableFuture<Void> pending = warmUp;
+    if (pending != null) {
+      // waiting for the parser being built is faster than building another one at the same time
+      try {
+        pending.join();
+      } catch (CompletionException | CancellationException e) {
+        // the parser is built again below, its failure being reported to the caller if it fails again
+      }
+      RustSourceParser parser = idle.poll();
+      if (parser != null) {
+        return parser;
+      }
+    }
+    return factory.get();
+  }
+
+  int idleParsers() {
+    return idle.size();
+  }
+
+}
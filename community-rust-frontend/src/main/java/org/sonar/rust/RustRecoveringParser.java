@@ -0,0 +1,151 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.RecognitionException;
+import java.util.ArrayList;
+import org.sonar.rust.api.RustPunctuator;
+import org.sonar.sslr.grammar.GrammarRuleKey;
+import org.sonar.sslr.grammar.LexerlessGrammarBuilder;
+
+/**
+ * Parses the files which the grammar rejects, by skipping their top-level items which do not parse. The file is
+ * parsed once more with the grammar extended so that, where a statement does not parse, the tokens of the item are
+ * skipped up to a {@code ;} or a closing brace outside of any brackets, the brace being followed by a {@code ;} or not,
+ * the same way as a {@link TopLevelItem} is delimited. The items which parse are thus parsed once, whatever the number
+ * of items skipped.
+ * <p>
+ * The resulting {@link RustGrammar#COMPILATION_UNIT} has a {@link #PARSE_ERROR} child in place of each skipped item,
+ * with the first token of the item. Instances are thread-safe.
+ */
+public final class RustRecoveringParser {
+
+  /**
+   * Type of the nodes standing for the items skipped by the parser.
+   */
+  public static final AstNodeType PARSE_ERROR = new AstNodeType() {
+    @Override
+    public String toString() {
+      return "PARSE_ERROR";
+    }
+  };
+
+  // beyond, the content is not considered as Rust code
+  static final int MAX_SKIPPED_ITEMS = 10;
+
+  private enum Rule implements GrammarRuleKey {
+    RECOVERING_UNIT,
+    SKIPPED_ITEM,
+    SKIPPED_TOKEN,
+    PARENTHESES,
+    BRACKETS,
+    BRACES
+  }
+
+  // the grammar is only built once a file does not parse
+  private final RustParserPool parser;
+
+  public RustRecoveringParser(RustParserConfiguration conf) {
+    this.parser = new RustParserPool(() -> RustSourceParser.create(conf, RustRecoveringParser::recoveringRules));
+  }
+
+  private static void recoveringRules(LexerlessGrammarBuilder b) {
+    b.rule(Rule.RECOVERING_UNIT).is(RustGrammar.SPC, b.zeroOrMore(RustGrammar.INNER_ATTRIBUTE, RustGrammar.SPC),
+      b.zeroOrMore(b.firstOf(RustGrammar.STATEMENT, Rule.SKIPPED_ITEM), RustGrammar.SPC),
+      b.zeroOrMore(RustGrammar.MACRO_INVOCATION, RustGrammar.SPC),
+      RustGrammar.EOF);
+
+    b.rule(Rule.SKIPPED_ITEM).is(
+      b.nextNot(b.zeroOrMore(RustGrammar.MACRO_INVOCATION, RustGrammar.SPC), RustGrammar.EOF),
+      b.zeroOrMore(b.nextNot(b.firstOf(RustPunctuator.SEMI, "{", "}")), Rule.SKIPPED_TOKEN, RustGrammar.SPC),
+      b.firstOf(
+        RustPunctuator.SEMI,
+        b.sequence(Rule.BRACES, b.optional(RustGrammar.SPC, RustPunctuator.SEMI)),
+        "}",
+        // not terminated, such as a function missing its closing brace
+        b.next(b.endOfInput())));
+
+    b.rule(Rule.SKIPPED_TOKEN).is(b.firstOf(
+      Rule.PARENTHESES,
+      Rule.BRACKETS,
+      Rule.BRACES,
+      RustGrammar.ANY_TOKEN,
+      RustGrammar.KEYWORD,
+      RustPunctuator.SEMI,
+      RustGrammar.UNKNOWN_CHAR));
+
+    // a closing bracket also closes the unbalanced ones it encloses
+    b.rule(Rule.PARENTHESES).is("(", RustGrammar.SPC, b.zeroOrMore(b.nextNot(closing(b)), Rule.SKIPPED_TOKEN, RustGrammar.SPC),
+      b.optional(")"));
+    b.rule(Rule.BRACKETS).is("[", RustGrammar.SPC, b.zeroOrMore(b.nextNot(closing(b)), Rule.SKIPPED_TOKEN, RustGrammar.SPC),
+      b.optional("]"));
+    b.rule(Rule.BRACES).is("{", RustGrammar.SPC, b.zeroOrMore(b.nextNot(closing(b)), Rule.SKIPPED_TOKEN, RustGrammar.SPC),
+      b.optional("}"));
+
+    b.setRootRule(Rule.RECOVERING_UNIT);
+  }
+
+  private static Object closing(LexerlessGrammarBuilder b) {
+    return b.firstOf(")", "]", "}");
+  }
+
+  /**
+   * Parses the given content, whose parse already failed with the given error, skipping the items which do not parse.
+   *
+   * @param startTime {@link System#nanoTime()} at which the failed parse started, from which the timeout is counted so
+   *                  that it bounds the time spent on the file as a whole
+   * @throws RecognitionException the given error, when the items which do not parse cannot be delimited or when more
+   * than {@link #MAX_SKIPPED_ITEMS} items would have to be skipped
+   */
+  public AstNode parse(RustFileContent content, RecognitionException error, long startTime) {
+    AstNode tree;
+    try {
+      tree = parser.parse(content.chars(), startTime);
+    } catch (RecognitionException e) {
+      throw error;
+    }
+    if (tree.getChildren(Rule.SKIPPED_ITEM).size() > MAX_SKIPPED_ITEMS) {
+      throw error;
+    }
+    return compilationUnit(tree);
+  }
+
+  private static AstNode compilationUnit(AstNode tree) {
+    var compilationUnit = new AstNode(RustGrammar.COMPILATION_UNIT, RustGrammar.COMPILATION_UNIT.name(), tree.getToken());
+    compilationUnit.setFromIndex(tree.getFromIndex());
+    compilationUnit.setToIndex(tree.getToIndex());
+    // copied first, addChild changing the parent of the children
+    for (AstNode child : new ArrayList<>(tree.getChildren())) {
+      compilationUnit.addChild(child.is(Rule.SKIPPED_ITEM) ? parseError(child) : child);
+    }
+    return compilationUnit;
+  }
+
+  private static AstNode parseError(AstNode item) {
+    var node = new AstNode(PARSE_ERROR, PARSE_ERROR.toString(), item.getToken());
+    node.setFromIndex(item.getFromIndex());
+    node.setToIndex(item.getToIndex());
+    return node;
+  }
+
+}
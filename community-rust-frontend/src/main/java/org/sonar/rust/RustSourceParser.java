@@ -0,0 +1,123 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.RecognitionException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import org.sonar.sslr.grammar.LexerlessGrammarBuilder;
+import org.sonar.sslr.internal.matchers.AstCreator;
+import org.sonar.sslr.internal.matchers.LocatedText;
+import org.sonar.sslr.parser.LexerlessGrammar;
+import org.sonar.sslr.parser.ParseError;
+import org.sonar.sslr.parser.ParseErrorFormatter;
+import org.sonar.sslr.parser.ParseRunner;
+import org.sonar.sslr.parser.ParsingResult;
+
+/**
+ * Parser of Rust sources, doing the same as {@link org.sonar.sslr.parser.ParserAdapter}, which copies its input into
+ * new arrays twice, except that it also parses the characters it is given as they are. When the grammar has a
+ * {@link ParseDeadline}, it is started before each parse. Files are read with a {@link RustSourceReader}. Instances
+ * are not thread-safe.
+ */
+public final class RustSourceParser {
+
+  private final RustSourceReader reader;
+  private final LexerlessGrammar grammar;
+  private final ParseRunner parseRunner;
+  @Nullable
+  private final ParseDeadline deadline;
+
+  private RustSourceParser(Charset charset, LexerlessGrammar grammar, @Nullable ParseDeadline deadline) {
+    this.reader = new RustSourceReader(charset);
+    this.grammar = grammar;
+    this.parseRunner = new ParseRunner(grammar.getRootRule());
+    this.deadline = deadline;
+  }
+
+  public static RustSourceParser create(RustParserConfiguration conf) {
+    return create(conf, b -> {
+    });
+  }
+
+  /**
+   * Parser of the grammar extended with the given rules, which may set another root rule.
+   */
+  static RustSourceParser create(RustParserConfiguration conf, Consumer<LexerlessGrammarBuilder> rules) {
+    ParseDeadline deadline = conf.getParseTimeout().isZero() ? null : new ParseDeadline(conf.getParseTimeout());
+    LexerlessGrammarBuilder b = RustGrammar.create(deadline);
+    rules.accept(b);
+    return new RustSourceParser(conf.getCharset(), b.build(), deadline);
+  }
+
+  LexerlessGrammar grammar() {
+    return grammar;
+  }
+
+  public AstNode parse(String source) {
+    return parse(null, source.toCharArray(), System.nanoTime());
+  }
+
+  /**
+   * @throws RecognitionException when the file cannot be read or parsed
+   */
+  public AstNode parse(File file) {
+    char[] chars;
+    try {
+      chars = reader.read(file.toPath());
+    } catch (IOException e) {
+      throw new RecognitionException(0, e.getMessage(), e);
+    }
+    return parse(file, chars, System.nanoTime());
+  }
+
+  /**
+   * Parses the given characters, which must not be modified until the returned tree is no longer used.
+   */
+  public AstNode parse(char[] source) {
+    return parse(null, source, System.nanoTime());
+  }
+
+  /**
+   * Same as {@link #parse(char[])}, the timeout being counted from the given {@link System#nanoTime()}.
+   */
+  AstNode parse(char[] source, long startTime) {
+    return parse(null, source, startTime);
+  }
+
+  private AstNode parse(@Nullable File file, char[] chars, long startTime) {
+    if (deadline != null) {
+      deadline.start(startTime);
+    }
+    ParsingResult result = parseRunner.parse(chars);
+    if (result.isMatched()) {
+      return AstCreator.create(result, new LocatedText(file, chars));
+    }
+    ParseError parseError = result.getParseError();
+    int line = parseError.getInputBuffer().getPosition(parseError.getErrorIndex()).getLine();
+    throw new RecognitionException(line, new ParseErrorFormatter().format(parseError));
+  }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads source files into a {@code char[]} without building an intermediate {@link String}: the file is mapped in
+ * memory and decoded into a buffer reused from one file to the next. As for {@code InputFile#contents()}, a leading
+ * byte order mark is dropped and malformed input is replaced. Instances are not thread-safe.
+ */
+final class RustSourceReader {
+
+  private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+  private final CharsetDecoder decoder;
+  private CharBuffer buffer = CharBuffer.allocate(0);
+
+  RustSourceReader(Charset charset) {
+    this.decoder = charset.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+
+  char[] read(Path path) throws IOException {
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File is too large to be analyzed: " + path);
+      }
+      return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    }
+  }
+
+  private char[] decode(ByteBuffer bytes) throws IOException {
+    int capacity = (int) Math.ceil(bytes.remaining() * (double) decoder.maxCharsPerByte());
+    if (buffer.capacity() < capacity) {
+      buffer = CharBuffer.allocate(capacity);
+    }
+    buffer.clear();
+    decoder.reset();
+    CoderResult result = decoder.decode(bytes, buffer, true);
+    if (!result.isUnderflow()) {
+      result.throwException();
+    }
+    result = decoder.flush(buffer);
+    if (!result.isUnderflow()) {
+      result.throwException();
+    }
+    char[] chars = buffer.array();
+    int start = buffer.position() > 0 && chars[0] == BYTE_ORDER_MARK ? 1 : 0;
+    return Arrays.copyOfRange(chars, start, buffer.position());
+  }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.Token;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Lexer returned by {@link RustLexer#create(RustParserConfiguration)}: the {@link RustTokenizer} reading the files
+ * with a {@link RustSourceReader} of the configured charset. Instances are not thread-safe.
+ */
+public final class RustSourceTokenizer {
+
+  private final RustTokenizer tokenizer = new RustTokenizer();
+  private final RustSourceReader reader;
+
+  RustSourceTokenizer(Charset charset) {
+    this.reader = new RustSourceReader(charset);
+  }
+
+  /**
+   * @throws RecognitionException if the source contains a character which does not start any token
+   */
+  public List<Token> tokenize(String source) {
+    return tokenizer.tokenize(source);
+  }
+
+  /**
+   * @throws RecognitionException if the file cannot be read or contains a character which does not start any token
+   */
+  public List<Token> tokenize(File file) {
+    char[] chars;
+    try {
+      chars = reader.read(file.toPath());
+    } catch (IOException e) {
+      throw new RecognitionException(0, e.getMessage(), e);
+    }
+    return tokenizer.tokenize(chars, file.toURI());
+  }
+
+}
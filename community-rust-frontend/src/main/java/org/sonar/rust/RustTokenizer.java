@@ -0,0 +1,788 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
+import com.sonar.sslr.api.Trivia;
+import java.net.URI;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import org.sonar.rust.api.RustKeyword;
+import org.sonar.rust.api.RustPunctuator;
+import org.sonar.rust.api.RustTokenType;
+
+/**
+ * Single pass tokenizer producing the same tokens as the {@link RustLexer#TOKENS} rule of the grammar, without
+ * running the parsing expressions of the grammar.
+ * <p>
+ * Each method mirrors the rule of {@link RustGrammar} it is named after, alternatives being tried in the same order,
+ * so that the two lexers keep agreeing on the edge cases as well (integer literals swallow the whitespace and comments
+ * following them, lifetimes are split into one token per character...). Unlike the grammar, keywords and punctuators
+ * get their {@link RustKeyword} and {@link RustPunctuator} token types, so that they can be told apart without
+ * comparing token values. The tokenizer is stateless and can be shared.
+ */
+public final class RustTokenizer {
+
+  /**
+   * Type of the delimiters and of the characters of lifetimes.
+   */
+  static final TokenType UNTYPED = new TokenType() {
+    @Override
+    public String getName() {
+      return "TOKEN";
+    }
+
+    @Override
+    public String getValue() {
+      return "TOKEN";
+    }
+
+    @Override
+    public boolean hasToBeSkippedFromAst(AstNode node) {
+      return false;
+    }
+  };
+
+  private static final URI UNKNOWN_FILE = URI.create("tests://unittest");
+  private static final int FAIL = -1;
+
+  private static final int DIGIT = 1;
+  private static final int HEX = 1 << 1;
+  private static final int IDENTIFIER_START = 1 << 2;
+  private static final int IDENTIFIER_PART = 1 << 3;
+  private static final int DELIMITER = 1 << 4;
+  private static final int WHITESPACE = 1 << 5;
+  private static final int[] ASCII = new int[128];
+
+  private static final RustPunctuator[][] PUNCTUATORS = new RustPunctuator[128][];
+  private static final Map<String, RustKeyword> KEYWORDS = new HashMap<>();
+  private static final String[] INTEGER_SUFFIXES = {"u8", "u16", "u32", "u64", "u128", "usize", "i8", "i16", "i32", "i64", "i128", "isize"};
+  private static final String[] RAW_IDENTIFIER_EXCLUSIONS = {"crate", "self", "super", "Self"};
+  private static final Pattern RAW_STRING_WITH_HASHES = Pattern.compile("r(#+\"[\\s\\S]+?\\\"#.*\\\"#+)");
+
+  static {
+    for (char c = '0'; c <= '9'; c++) {
+      ASCII[c] |= DIGIT | HEX | IDENTIFIER_PART;
+    }
+    for (char c = 'a'; c <= 'z'; c++) {
+      ASCII[c] |= IDENTIFIER_START | IDENTIFIER_PART;
+      ASCII[Character.toUpperCase(c)] |= IDENTIFIER_START | IDENTIFIER_PART;
+    }
+    for (char c = 'a'; c <= 'f'; c++) {
+      ASCII[c] |= HEX;
+      ASCII[Character.toUpperCase(c)] |= HEX;
+    }
+    ASCII['_'] |= IDENTIFIER_START | IDENTIFIER_PART;
+    for (char c : "{}[]()".toCharArray()) {
+      ASCII[c] |= DELIMITER;
+    }
+    for (char c : " \t\n\r".toCharArray()) {
+      ASCII[c] |= WHITESPACE;
+    }
+
+    List<RustPunctuator> punctuators = new ArrayList<>(Arrays.asList(RustPunctuator.values()));
+    punctuators.remove(RustPunctuator.SEMI);
+    // longest first, as the reverse sorting of the grammar
+    punctuators.sort(Comparator.comparingInt((RustPunctuator punctuator) -> punctuator.getValue().length()).reversed());
+    for (RustPunctuator punctuator : punctuators) {
+      char first = punctuator.getValue().charAt(0);
+      RustPunctuator[] candidates = PUNCTUATORS[first] == null ? new RustPunctuator[0] : PUNCTUATORS[first];
+      candidates = Arrays.copyOf(candidates, candidates.length + 1);
+      candidates[candidates.length - 1] = punctuator;
+      PUNCTUATORS[first] = candidates;
+    }
+    for (RustKeyword keyword : RustKeyword.values()) {
+      KEYWORDS.put(keyword.getValue(), keyword);
+    }
+  }
+
+  /**
+   * @throws RecognitionException if the source contains a character which does not start any token
+   */
+  public List<Token> tokenize(String source) {
+    return tokenize(source.toCharArray());
+  }
+
+  /**
+   * Same as {@link #tokenize(String)}, reading the given characters without copying them.
+   */
+  public List<Token> tokenize(char[] source) {
+    return tokenize(source, UNKNOWN_FILE);
+  }
+
+  List<Token> tokenize(char[] source, URI uri) {
+    return new Scan(source, uri).tokens();
+  }
+
+  private static boolean is(char c, int charClass) {
+    return c < 128 && (ASCII[c] & charClass) != 0;
+  }
+
+  private static boolean isIdentifierStart(int codePoint) {
+    if (codePoint < 128) {
+      return (ASCII[codePoint] & IDENTIFIER_START) != 0;
+    }
+    return isLetter(Character.getType(codePoint));
+  }
+
+  private static boolean isIdentifierPart(int codePoint) {
+    if (codePoint < 128) {
+      return (ASCII[codePoint] & IDENTIFIER_PART) != 0;
+    }
+    int type = Character.getType(codePoint);
+    return isLetter(type)
+      || type == Character.NON_SPACING_MARK
+      || type == Character.COMBINING_SPACING_MARK
+      || type == Character.DECIMAL_DIGIT_NUMBER
+      || type == Character.CONNECTOR_PUNCTUATION;
+  }
+
+  private static boolean isLetter(int type) {
+    return type == Character.UPPERCASE_LETTER
+      || type == Character.LOWERCASE_LETTER
+      || type == Character.TITLECASE_LETTER
+      || type == Character.MODIFIER_LETTER
+      || type == Character.OTHER_LETTER
+      || type == Character.LETTER_NUMBER;
+  }
+
+  private static final class Scan {
+
+    private final URI uri;
+    private final char[] chars;
+    private final int length;
+    private final List<Token> tokens = new ArrayList<>();
+    private final List<Trivia> trivia = new ArrayList<>();
+
+    private int line = 1;
+    private int lineStart = 0;
+    private int lineScan = 0;
+
+    private Scan(char[] chars, URI uri) {
+      this.uri = uri;
+      this.chars = chars;
+      this.length = chars.length;
+    }
+
+    private List<Token> tokens() {
+      int pos = spc(0, trivia);
+      while (pos < length) {
+        int end = anyToken(pos);
+        if (end == FAIL) {
+          moveTo(pos);
+          throw new RecognitionException(line, "Parse error at line " + line + " column " + (pos - lineStart + 1));
+        }
+        pos = spc(end, trivia);
+        if (pos < length && chars[pos] == ';') {
+          addToken(RustPunctuator.SEMI, pos, pos + 1);
+          pos = spc(pos + 1, trivia);
+        }
+      }
+      addToken(GenericTokenType.EOF, length, length);
+      return tokens;
+    }
+
+    private int anyToken(int pos) {
+      char c = chars[pos];
+      if (is(c, DELIMITER)) {
+        return addToken(UNTYPED, pos, pos + 1);
+      }
+      int end = literal(pos);
+      if (end != FAIL) {
+        return end;
+      }
+      end = identifier(pos);
+      if (end != FAIL) {
+        String value = new String(chars, pos, end - pos);
+        RustKeyword keyword = KEYWORDS.get(value);
+        return addToken(keyword == null ? RustTokenType.IDENTIFIER : keyword, pos, value);
+      }
+      end = punctuation(pos);
+      if (end != FAIL) {
+        return end;
+      }
+      return lifetime(pos);
+    }
+
+    private int literal(int pos) {
+      char c = chars[pos];
+      int end;
+      if (c == '\'' && (end = charLiteral(pos)) != FAIL) {
+        return addToken(RustTokenType.CHARACTER_LITERAL, pos, end);
+      }
+      if (c == '"' && (end = stringLiteral(pos)) != FAIL) {
+        return addToken(RustTokenType.STRING_LITERAL, pos, end);
+      }
+      if (c == 'r' && (end = rawStringLiteral(pos)) != FAIL) {
+        return addToken(RustTokenType.RAW_STRING_LITERAL, pos, end);
+      }
+      if (c == 'b') {
+        if ((end = byteLiteral(pos)) != FAIL) {
+          return addToken(RustTokenType.BYTE_LITERAL, pos, end);
+        }
+        if ((end = byteStringLiteral(pos)) != FAIL) {
+          return addToken(RustTokenType.BYTE_STRING_LITERAL, pos, end);
+        }
+        if ((end = rawByteStringLiteral(pos)) != FAIL) {
+          return addToken(RustTokenType.RAW_BYTE_STRING_LITERAL, pos, end);
+        }
+      }
+      if (is(c, DIGIT)) {
+        if ((end = floatLiteral(pos)) != FAIL) {
+          return addToken(RustTokenType.FLOAT_LITERAL, pos, end);
+        }
+        return addToken(RustTokenType.INTEGER_LITERAL, pos, integerLiteral(pos));
+      }
+      if ((c == 't' || c == 'f') && (end = booleanLiteral(pos)) != FAIL) {
+        return addToken(RustTokenType.BOOLEAN_LITERAL, pos, end);
+      }
+      return FAIL;
+    }
+
+    /**
+     * Whitespaces and comments, the comments being added to the given list unless it is null.
+     */
+    private int spc(int pos, @Nullable List<Trivia> comments) {
+      int p = whitespace(pos);
+      int end;
+      while ((end = comment(p)) != FAIL) {
+        if (comments != null) {
+          comments.add(Trivia.createComment(token(GenericTokenType.COMMENT, p, end, Collections.emptyList())));
+        }
+        p = whitespace(end);
+      }
+      return p;
+    }
+
+    private int whitespace(int pos) {
+      int p = pos;
+      while (p < length && is(chars[p], WHITESPACE)) {
+        p++;
+      }
+      return p;
+    }
+
+    private int comment(int pos) {
+      if (pos + 1 >= length || chars[pos] != '/') {
+        return FAIL;
+      }
+      if (chars[pos + 1] == '/') {
+        int p = pos + 2;
+        while (p < length && chars[p] != '\n' && chars[p] != '\r') {
+          p++;
+        }
+        return p;
+      }
+      if (chars[pos + 1] == '*') {
+        int close = indexOf('*', '/', pos + 2);
+        return close < 0 ? FAIL : (close + 2);
+      }
+      return FAIL;
+    }
+
+    private int charLiteral(int pos) {
+      int p = pos + 1;
+      int end = unicodeEscape(p);
+      if (end == FAIL) {
+        end = quoteEscape(p);
+      }
+      if (end == FAIL) {
+        end = asciiEscape(p);
+      }
+      if (end == FAIL && p < length) {
+        int codePoint = Character.codePointAt(chars, p);
+        if (!(codePoint >= 0x09 && codePoint <= 0x10) && codePoint != 0x13 && codePoint != '\'' && codePoint <= 0x1ffff) {
+          end = p + Character.charCount(codePoint);
+        }
+      }
+      return end != FAIL && at(end, '\'') ? (end + 1) : FAIL;
+    }
+
+    private int stringLiteral(int pos) {
+      int p = pos + 1;
+      while (true) {
+        int end = unicodeEscape(p);
+        if (end == FAIL) {
+          end = literal(p, "\\n//");
+        }
+        if (end == FAIL) {
+          end = literal(p, "\\\\");
+        }
+        if (end == FAIL) {
+          end = quoteEscape(p);
+        }
+        if (end == FAIL) {
+          end = asciiEscape(p);
+        }
+        if (end == FAIL) {
+          end = stringContinue(p);
+        }
+        if (end == FAIL) {
+          end = stringContent(p);
+        }
+        if (end == FAIL) {
+          break;
+        }
+        p = spc(end, null);
+      }
+      return at(p, '"') ? (p + 1) : FAIL;
+    }
+
+    private int stringContent(int pos) {
+      int p = pos;
+      while (p < length) {
+        int codePoint = Character.codePointAt(chars, p);
+        if (codePoint == '"' || codePoint == '\\' || codePoint > 0x1ffff) {
+          break;
+        }
+        p += Character.charCount(codePoint);
+      }
+      return p == pos ? FAIL : p;
+    }
+
+    private int rawStringLiteral(int pos) {
+      int end = rawStringContent(pos + 1);
+      if (end != FAIL) {
+        return end;
+      }
+      if (!at(pos + 1, '#')) {
+        return FAIL;
+      }
+      Matcher matcher = RAW_STRING_WITH_HASHES.matcher(CharBuffer.wrap(chars)).region(pos, length);
+      return matcher.lookingAt() ? matcher.end() : FAIL;
+    }
+
+    private int rawStringContent(int pos) {
+      if (at(pos, '"')) {
+        // (?="+)([\s\S]+?"+)
+        int quote = indexOf('"', pos + 1);
+        if (quote < 0) {
+          return FAIL;
+        }
+        int p = quote;
+        while (at(p, '"')) {
+          p++;
+        }
+        return p;
+      }
+      if (!at(pos, '#')) {
+        return FAIL;
+      }
+      if (at(pos + 1, '"')) {
+        // (#"[\s\S]+?"#)
+        int close = indexOf('"', '#', pos + 3);
+        if (close >= 0) {
+          return close + 2;
+        }
+      }
+      int end = rawStringContent(pos + 1);
+      return end != FAIL && at(end, '#') ? (end + 1) : FAIL;
+    }
+
+    private int byteLiteral(int pos) {
+      if (!at(pos + 1, '\'')) {
+        return FAIL;
+      }
+      int end = literal(pos, "b'\\''");
+      if (end != FAIL) {
+        return end;
+      }
+      int p = pos + 2;
+      if (p < length && isByteChar(chars[p]) && at(p + 1, '\'')) {
+        return p + 2;
+      }
+      end = byteEscape(p);
+      return end != FAIL && at(end, '\'') ? (end + 1) : FAIL;
+    }
+
+    private int byteStringLiteral(int pos) {
+      if (!at(pos + 1, '"')) {
+        return FAIL;
+      }
+      int p = pos + 2;
+      while (true) {
+        int end = literal(p, "\\\"");
+        if (end == FAIL && p < length && chars[p] <= 0x7f && chars[p] != '"' && chars[p] != '\\') {
+          end = p + 1;
+        }
+        if (end == FAIL) {
+          end = byteEscape(p);
+        }
+        if (end == FAIL) {
+          end = stringContinue(p);
+        }
+        if (end == FAIL) {
+          break;
+        }
+        p = end;
+      }
+      return at(p, '"') ? (p + 1) : FAIL;
+    }
+
+    private int rawByteStringLiteral(int pos) {
+      return at(pos + 1, 'r') ? rawStringContent(pos + 2) : FAIL;
+    }
+
+    private int floatLiteral(int pos) {
+      int dec = decLiteral(pos);
+      int p = dec;
+      if (at(p, '.') && decLiteral(p + 1) != FAIL) {
+        p = decLiteral(p + 1);
+      }
+      int end = floatExponent(p);
+      if (end != FAIL) {
+        p = end;
+      }
+      if (literal(p, "f64") != FAIL || literal(p, "f32") != FAIL) {
+        return p + 3;
+      }
+      if (at(dec, '.') && (end = decLiteral(dec + 1)) != FAIL) {
+        int exponent = floatExponent(end);
+        return exponent == FAIL ? end : exponent;
+      }
+      end = floatExponent(dec);
+      if (end != FAIL) {
+        return end;
+      }
+      if (at(dec, '.')) {
+        p = dec + 1;
+        if (identifier(p) == FAIL && !at(p, '.') && !at(p, '_')) {
+          return p;
+        }
+      }
+      return FAIL;
+    }
+
+    private int floatExponent(int pos) {
+      int p = pos;
+      while (at(p, 'e') || at(p, 'E')) {
+        p++;
+      }
+      if (p == pos) {
+        return FAIL;
+      }
+      if (at(p, '+') || at(p, '-')) {
+        p++;
+      }
+      if (p >= length || !is(chars[p], DIGIT)) {
+        return FAIL;
+      }
+      return digits(p + 1, DIGIT);
+    }
+
+    private int integerLiteral(int pos) {
+      int p;
+      if (literal(pos, "0x") != FAIL) {
+        p = digits(pos + 2, HEX);
+      } else if (literal(pos, "0o") != FAIL) {
+        p = digitsIn(pos + 2, '7');
+      } else if (literal(pos, "0b") != FAIL) {
+        p = digitsIn(pos + 2, '1');
+      } else {
+        p = decLiteral(pos);
+      }
+      for (String suffix : INTEGER_SUFFIXES) {
+        if (literal(p, suffix) != FAIL) {
+          p += suffix.length();
+          break;
+        }
+      }
+      return spc(p, null);
+    }
+
+    private int decLiteral(int pos) {
+      return pos < length && is(chars[pos], DIGIT) ? digits(pos + 1, DIGIT) : FAIL;
+    }
+
+    /**
+     * Digits of the given class and underscores.
+     */
+    private int digits(int pos, int charClass) {
+      int p = pos;
+      while (p < length && (chars[p] == '_' || is(chars[p], charClass))) {
+        p++;
+      }
+      return p;
+    }
+
+    /**
+     * Digits from 0 to the given one and underscores.
+     */
+    private int digitsIn(int pos, char last) {
+      int p = pos;
+      while (p < length && (chars[p] == '_' || (chars[p] >= '0' && chars[p] <= last))) {
+        p++;
+      }
+      return p;
+    }
+
+    private int booleanLiteral(int pos) {
+      int end = literal(pos, "true");
+      if (end == FAIL) {
+        end = literal(pos, "false");
+      }
+      return end != FAIL && identifier(end) == FAIL ? end : FAIL;
+    }
+
+    private int identifier(int pos) {
+      if (literal(pos, "r#") != FAIL) {
+        int end = rawIdentifier(pos + 2);
+        if (end != FAIL) {
+          return end;
+        }
+      }
+      return nonKeywordIdentifier(pos);
+    }
+
+    private int rawIdentifier(int pos) {
+      for (String excluded : RAW_IDENTIFIER_EXCLUSIONS) {
+        if (literal(pos, excluded) != FAIL) {
+          return FAIL;
+        }
+      }
+      return identifierOrKeyword(pos);
+    }
+
+    private int identifierOrKeyword(int pos) {
+      if (pos >= length) {
+        return FAIL;
+      }
+      int codePoint = Character.codePointAt(chars, pos);
+      if (!isIdentifierStart(codePoint)) {
+        return FAIL;
+      }
+      int p = pos + Character.charCount(codePoint);
+      while (p < length) {
+        codePoint = Character.codePointAt(chars, p);
+        if (!isIdentifierPart(codePoint)) {
+          break;
+        }
+        p += Character.charCount(codePoint);
+      }
+      return p;
+    }
+
+    private int nonKeywordIdentifier(int pos) {
+      int end = identifierOrKeyword(pos);
+      if (end != FAIL && isEndOfInput(end) && KEYWORDS.containsKey(new String(chars, pos, end - pos))) {
+        // the keyword lookbehind of the grammar only applies at the end of the input, where the regular expression
+        // backtracks by one character
+        end = Character.offsetByCodePoints(chars, 0, length, end, -1);
+      }
+      return end;
+    }
+
+    /**
+     * Same as the {@code $} boundary of a regular expression, which also matches before a final line terminator.
+     */
+    private boolean isEndOfInput(int pos) {
+      int remaining = length - pos;
+      if (remaining == 0) {
+        return true;
+      }
+      if (remaining == 1) {
+        char c = chars[pos];
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+      }
+      return remaining == 2 && chars[pos] == '\r' && chars[pos + 1] == '\n';
+    }
+
+    /**
+     * Adds the token of the longest punctuator starting at the given position.
+     */
+    private int punctuation(int pos) {
+      char c = chars[pos];
+      if (c >= 128 || PUNCTUATORS[c] == null) {
+        return FAIL;
+      }
+      for (RustPunctuator punctuator : PUNCTUATORS[c]) {
+        if (startsWith(punctuator.getValue(), pos)) {
+          return addToken(punctuator, pos, pos + punctuator.getValue().length());
+        }
+      }
+      return FAIL;
+    }
+
+    /**
+     * Lifetimes are not tokens of the grammar: the quote and each character of the name are separate tokens.
+     */
+    private int lifetime(int pos) {
+      if (chars[pos] != '\'') {
+        return FAIL;
+      }
+      int end = identifierOrKeyword(pos + 1);
+      if (end == FAIL) {
+        return FAIL;
+      }
+      addToken(UNTYPED, pos, pos + 1);
+      int p = pos + 1;
+      while (p < end) {
+        int next = p + Character.charCount(Character.codePointAt(chars, p));
+        addToken(UNTYPED, p, next);
+        p = next;
+      }
+      return end;
+    }
+
+    private int unicodeEscape(int pos) {
+      if (literal(pos, "\\u{") == FAIL) {
+        return FAIL;
+      }
+      int p = pos + 3;
+      if (p >= length || !is(chars[p], HEX)) {
+        return FAIL;
+      }
+      p = digits(p, HEX);
+      return at(p, '}') ? (p + 1) : FAIL;
+    }
+
+    private int quoteEscape(int pos) {
+      return at(pos, '\\') && (at(pos + 1, '\'') || at(pos + 1, '"')) ? (pos + 2) : FAIL;
+    }
+
+    private int asciiEscape(int pos) {
+      if (!at(pos, '\\') || pos + 1 >= length) {
+        return FAIL;
+      }
+      char c = chars[pos + 1];
+      if (c == 'x') {
+        return pos + 3 < length && chars[pos + 2] >= '0' && chars[pos + 2] <= '7' && is(chars[pos + 3], HEX) ? (pos + 4) : FAIL;
+      }
+      return c == 'n' || c == 'r' || c == 't' || c == '\\' || c == '0' ? (pos + 2) : FAIL;
+    }
+
+    private int byteEscape(int pos) {
+      if (!at(pos, '\\') || pos + 1 >= length) {
+        return FAIL;
+      }
+      char c = chars[pos + 1];
+      if (c == 'x') {
+        return pos + 3 < length && is(chars[pos + 2], HEX) && is(chars[pos + 3], HEX) ? (pos + 4) : FAIL;
+      }
+      return "nrt\\'\"0".indexOf(c) >= 0 ? (pos + 2) : FAIL;
+    }
+
+    private int stringContinue(int pos) {
+      return literal(pos, "\\\n");
+    }
+
+    private static boolean isByteChar(char c) {
+      return c <= 0x7f && !(c >= 0x09 && c <= 0x10) && c != 0x13 && c != '\'';
+    }
+
+    private boolean at(int pos, char c) {
+      return pos < length && chars[pos] == c;
+    }
+
+    private int literal(int pos, String value) {
+      return startsWith(value, pos) ? (pos + value.length()) : FAIL;
+    }
+
+    private boolean startsWith(String value, int pos) {
+      if (pos + value.length() > length) {
+        return false;
+      }
+      for (int i = 0; i < value.length(); i++) {
+        if (chars[pos + i] != value.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private int indexOf(char c, int from) {
+      for (int i = from; i < length; i++) {
+        if (chars[i] == c) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Index of the first occurrence of the two characters in a row.
+     */
+    private int indexOf(char first, char second, int from) {
+      for (int i = from; i + 1 < length; i++) {
+        if (chars[i] == first && chars[i + 1] == second) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private int addToken(TokenType type, int start, int end) {
+      return addToken(type, start, new String(chars, start, end - start));
+    }
+
+    private int addToken(TokenType type, int start, String value) {
+      tokens.add(token(type, start, value, trivia));
+      trivia.clear();
+      return start + value.length();
+    }
+
+    private Token token(TokenType type, int start, int end, List<Trivia> tokenTrivia) {
+      return token(type, start, new String(chars, start, end - start), tokenTrivia);
+    }
+
+    private Token token(TokenType type, int start, String value, List<Trivia> tokenTrivia) {
+      moveTo(start);
+      return Token.builder()
+        .setType(type)
+        .setValueAndOriginalValue(value)
+        .setURI(uri)
+        .setLine(line)
+        .setColumn(start - lineStart)
+        .setGeneratedCode(false)
+        .notCopyBook()
+        .setTrivia(tokenTrivia)
+        .build();
+    }
+
+    /**
+     * Advances the line and column tracking, the positions being visited in increasing order.
+     */
+    private void moveTo(int pos) {
+      for (int i = lineScan; i < pos; i++) {
+        char c = chars[i];
+        if (c == '\n' || (c == '\r' && (i + 1 == length || chars[i + 1] != '\n'))) {
+          line++;
+          lineStart = i + 1;
+        }
+      }
+      lineScan = Math.max(lineScan, pos);
+    }
+  }
+
+}
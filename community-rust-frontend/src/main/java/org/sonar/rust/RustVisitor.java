@@ -23,11 +23,13 @@ package org.sonar.rust;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.AstNodeType;
 import com.sonar.sslr.api.Token;
-import java.util.List;
+import java.util.Collections;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 public class RustVisitor {
 
+  @Nullable
   private RustVisitorContext context;
 
   public Set<AstNodeType> subscribedKinds() {
@@ -54,46 +56,19 @@ public class RustVisitor {
     // Do nothing
   }
 
+  /**
+   * Context of the file being scanned, null outside of {@link #scanFile(RustVisitorContext)}.
+   */
   public RustVisitorContext getContext() {
     return context;
   }
 
-  // for testing purpose only
-  public void setContext(RustVisitorContext context) {
+  public void setContext(@Nullable RustVisitorContext context) {
     this.context = context;
   }
 
   public void scanFile(RustVisitorContext context) {
-    this.context = context;
-    AstNode tree = context.rootTree();
-    visitFile(tree);
-    if (tree != null) {
-      scanNode(tree, subscribedKinds());
-    }
-    leaveFile(tree);
-  }
-
-  private void scanNode(AstNode node, Set<AstNodeType> subscribedKinds) {
-    boolean isSubscribedType = subscribedKinds.contains(node.getType());
-
-    if (isSubscribedType) {
-      visitNode(node);
-    }
-
-    List<AstNode> children = node.getChildren();
-    if (children.isEmpty()) {
-      for (Token token : node.getTokens()) {
-        visitToken(token);
-      }
-    } else {
-      for (AstNode child : children) {
-        scanNode(child, subscribedKinds);
-      }
-    }
-
-    if (isSubscribedType) {
-      leaveNode(node);
-    }
+    new RustVisitorDispatcher(Collections.singletonList(this)).scanFile(context);
   }
 
 }
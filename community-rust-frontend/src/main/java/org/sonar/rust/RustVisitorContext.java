@@ -22,24 +22,53 @@ package org.sonar.rust;
 
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.Token;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 public class RustVisitorContext {
 
   private final RustFile file;
   private final AstNode rootTree;
+  private final List<Token> tokens;
   private final RecognitionException parsingException;
+  private RustFileContent content;
 
   public RustVisitorContext(RustFile file, AstNode tree) {
-    this(file, tree, null);
+    this(file, null, tree, null, null);
+  }
+
+  /**
+   * @param tokens the tokens produced by {@link RustTokenizer} for the file content, shared by all the visitors
+   *               needing them so that the file is lexed only once
+   */
+  public RustVisitorContext(RustFile file, AstNode tree, List<Token> tokens) {
+    this(file, null, tree, tokens, null);
+  }
+
+  /**
+   * @param content the content already decoded from the file, shared by all the visitors instead of reading the file
+   *                again
+   */
+  public RustVisitorContext(RustFile file, RustFileContent content, @Nullable AstNode tree, @Nullable List<Token> tokens) {
+    this(file, content, tree, tokens, null);
   }
 
   public RustVisitorContext(RustFile file, RecognitionException parsingException) {
-    this(file, null, parsingException);
+    this(file, null, null, null, parsingException);
+  }
+
+  public RustVisitorContext(RustFile file, @Nullable RustFileContent content, RecognitionException parsingException) {
+    this(file, content, null, null, parsingException);
   }
 
-  private RustVisitorContext(RustFile file, AstNode rootTree, RecognitionException parsingException) {
+  private RustVisitorContext(RustFile file, @Nullable RustFileContent content, @Nullable AstNode rootTree, @Nullable List<Token> tokens,
+    @Nullable RecognitionException parsingException) {
     this.file = file;
+    this.content = content;
     this.rootTree = rootTree;
+    this.tokens = tokens;
     this.parsingException = parsingException;
   }
 
@@ -51,6 +80,28 @@ public class RustVisitorContext {
     return file;
   }
 
+  /**
+   * Content of the file, decoded at most once and then shared by all the visitors of the file.
+   */
+  public RustFileContent fileContent() {
+    if (content == null) {
+      content = new RustFileContent(file.content());
+    }
+    return content;
+  }
+
+  public String content() {
+    return fileContent().text();
+  }
+
+  /**
+   * Lexer tokens of the file, or null when they were not computed along with the tree.
+   */
+  @CheckForNull
+  public List<Token> tokens() {
+    return tokens;
+  }
+
   public RecognitionException parsingException() {
     return parsingException;
   }
@@ -0,0 +1,150 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.Token;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Walks the tree of a file once and forwards each node to the visitors subscribed to its kind, so that the cost of
+ * the traversal does not depend on the number of visitors. Subscriptions to {@link RustGrammar} rules are resolved
+ * through a table indexed by rule ordinal.
+ */
+public class RustVisitorDispatcher {
+
+  private static final RustVisitor[] NO_VISITORS = new RustVisitor[0];
+
+  private final RustVisitor[] visitors;
+  private final RustVisitor[][] visitorsByRule;
+  private final Map<AstNodeType, RustVisitor[]> visitorsByOtherKind;
+  private final RustVisitor[] tokenVisitors;
+
+  public RustVisitorDispatcher(List<? extends RustVisitor> visitors) {
+    this.visitors = visitors.toArray(NO_VISITORS);
+
+    List<List<RustVisitor>> byRule = new ArrayList<>();
+    for (int i = 0; i < RustGrammar.values().length; i++) {
+      byRule.add(new ArrayList<>());
+    }
+    Map<AstNodeType, List<RustVisitor>> byOtherKind = new HashMap<>();
+    List<RustVisitor> visitingTokens = new ArrayList<>();
+
+    for (RustVisitor visitor : visitors) {
+      for (AstNodeType kind : visitor.subscribedKinds()) {
+        if (kind instanceof RustGrammar) {
+          byRule.get(((RustGrammar) kind).ordinal()).add(visitor);
+        } else {
+          byOtherKind.computeIfAbsent(kind, k -> new ArrayList<>()).add(visitor);
+        }
+      }
+      if (visitsTokens(visitor)) {
+        visitingTokens.add(visitor);
+      }
+    }
+
+    this.visitorsByRule = new RustVisitor[byRule.size()][];
+    for (int i = 0; i < byRule.size(); i++) {
+      visitorsByRule[i] = byRule.get(i).toArray(NO_VISITORS);
+    }
+    this.visitorsByOtherKind = new HashMap<>();
+    byOtherKind.forEach((kind, subscribers) -> visitorsByOtherKind.put(kind, subscribers.toArray(NO_VISITORS)));
+    this.tokenVisitors = visitingTokens.toArray(NO_VISITORS);
+  }
+
+  /**
+   * Visitors relying on the default, empty, implementation of {@link RustVisitor#visitToken(Token)} are not
+   * notified of tokens at all.
+   */
+  private static boolean visitsTokens(RustVisitor visitor) {
+    try {
+      return visitor.getClass().getMethod("visitToken", Token.class).getDeclaringClass() != RustVisitor.class;
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Once the file is scanned, the context is removed from the visitors, so that the tree and the content of the file
+   * do not stay reachable from long-lived visitors until the next file.
+   */
+  public void scanFile(RustVisitorContext context) {
+    AstNode tree = context.rootTree();
+    try {
+      for (RustVisitor visitor : visitors) {
+        visitor.setContext(context);
+        visitor.visitFile(tree);
+      }
+      if (tree != null) {
+        scanNode(tree);
+      }
+      for (RustVisitor visitor : visitors) {
+        visitor.leaveFile(tree);
+      }
+    } finally {
+      for (RustVisitor visitor : visitors) {
+        visitor.setContext(null);
+      }
+    }
+  }
+
+  private void scanNode(AstNode node) {
+    RustVisitor[] subscribers = subscribersOf(node.getType());
+
+    for (RustVisitor subscriber : subscribers) {
+      subscriber.visitNode(node);
+    }
+
+    List<AstNode> children = node.getChildren();
+    if (children.isEmpty()) {
+      if (tokenVisitors.length > 0) {
+        for (Token token : node.getTokens()) {
+          for (RustVisitor tokenVisitor : tokenVisitors) {
+            tokenVisitor.visitToken(token);
+          }
+        }
+      }
+    } else {
+      for (AstNode child : children) {
+        scanNode(child);
+      }
+    }
+
+    for (RustVisitor subscriber : subscribers) {
+      subscriber.leaveNode(node);
+    }
+  }
+
+  private RustVisitor[] subscribersOf(AstNodeType type) {
+    if (type instanceof RustGrammar) {
+      return visitorsByRule[((RustGrammar) type).ordinal()];
+    }
+    if (visitorsByOtherKind.isEmpty()) {
+      return NO_VISITORS;
+    }
+    return visitorsByOtherKind.getOrDefault(type, NO_VISITORS);
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import com.sonar.sslr.api.Token;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Top-level item of a file, delimited from the tokens of the file without parsing it: an item ends with a {@code ;}
+ * or a closing brace outside of any brackets, the brace being followed by a {@code ;} or not, and includes the
+ * attributes preceding it. The last item ends with the file when it is not terminated.
+ */
+final class TopLevelItem {
+
+  private static final String OPENING = "([{";
+  private static final String CLOSING = ")]}";
+
+  final Token first;
+  final Token last;
+  // offsets of the first character of the item and following its last one
+  final int start;
+  final int end;
+
+  private TopLevelItem(Token first, Token last, int start, int end) {
+    this.first = first;
+    this.last = last;
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * @param tokens tokens of the content, as produced by the {@link RustTokenizer}
+   */
+  static List<TopLevelItem> of(RustFileContent content, List<Token> tokens) {
+    List<TopLevelItem> items = new ArrayList<>();
+    // brackets not closed yet, a closing bracket also closing the unbalanced ones it encloses
+    var open = new StringBuilder();
+    Token first = null;
+    Token last = null;
+    for (int i = 0; i < tokens.size(); i++) {
+      Token token = tokens.get(i);
+      String value = token.getValue();
+      if (value.isEmpty()) {
+        // end of file
+        continue;
+      }
+      if (first == null) {
+        first = token;
+      }
+      last = token;
+      boolean end;
+      if (value.length() == 1 && OPENING.indexOf(value.charAt(0)) >= 0) {
+        open.append(value.charAt(0));
+        end = false;
+      } else if (value.length() == 1 && CLOSING.indexOf(value.charAt(0)) >= 0) {
+        int opening = open.lastIndexOf(String.valueOf(OPENING.charAt(CLOSING.indexOf(value.charAt(0)))));
+        if (opening >= 0) {
+          open.setLength(opening);
+        }
+        // such as the struct expression of "const S: S = S { a: 1 };"
+        end = open.length() == 0 && "}".equals(value) && (i + 1 == tokens.size() || !";".equals(tokens.get(i + 1).getValue()));
+      } else {
+        end = open.length() == 0 && ";".equals(value);
+      }
+      if (end) {
+        items.add(new TopLevelItem(first, token, offset(content, first), offset(content, token) + token.getOriginalValue().length()));
+        first = null;
+      }
+    }
+    if (first != null) {
+      // not terminated, such as a function missing its closing brace
+      items.add(new TopLevelItem(first, last, offset(content, first), content.text().length()));
+    }
+    return items;
+  }
+
+  private static int offset(RustFileContent content, Token token) {
+    return content.lineStart(token.getLine()) + token.getColumn();
+  }
+
+}
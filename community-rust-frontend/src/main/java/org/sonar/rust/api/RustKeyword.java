@@ -20,12 +20,14 @@
  */
 package org.sonar.rust.api;
 
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.TokenType;
 import org.sonar.sslr.grammar.GrammarRuleKey;
 
 /*
 See https://doc.rust-lang.org/reference/keywords.html
  */
-public enum RustKeyword implements GrammarRuleKey {
+public enum RustKeyword implements TokenType, GrammarRuleKey {
   KW_ABSTRACT("abstract"), // reserved keyword.
   KW_AS("as"),
   KW_ASYNC("async"), // added beginning in the 2018 edition.
@@ -106,4 +108,9 @@ public enum RustKeyword implements GrammarRuleKey {
   public String getValue() {
     return value;
   }
+
+  @Override
+  public boolean hasToBeSkippedFromAst(AstNode node) {
+    return false;
+  }
 }
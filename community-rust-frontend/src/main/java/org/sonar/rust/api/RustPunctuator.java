@@ -20,9 +20,11 @@
  */
 package org.sonar.rust.api;
 
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.TokenType;
 import org.sonar.sslr.grammar.GrammarRuleKey;
 
-public enum RustPunctuator implements GrammarRuleKey {
+public enum RustPunctuator implements TokenType, GrammarRuleKey {
 
   PLUS("+"),
   MINUS("-"),
@@ -93,4 +95,9 @@ public enum RustPunctuator implements GrammarRuleKey {
   public String getValue() {
     return value;
   }
+
+  @Override
+  public boolean hasToBeSkippedFromAst(AstNode node) {
+    return false;
+  }
 }
@@ -23,16 +23,15 @@ package org.sonar.rust.metrics;
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.Token;
 import com.sonar.sslr.api.Trivia;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
 import org.sonar.rust.RustVisitor;
 
 public class CommentsVisitor extends RustVisitor {
 
-  private Set<Integer> comments;
+  private LineSet comments;
   private boolean seenFirstToken;
 
-  public Set<Integer> commentLines() {
+  public LineSet commentLines() {
     return comments;
   }
 
@@ -42,26 +41,23 @@ public class CommentsVisitor extends RustVisitor {
 
   @Override
   public void visitFile(AstNode astNode) {
-    comments = new HashSet<>();
+    comments = new LineSet();
     seenFirstToken = false;
+
+    List<Token> tokens = getContext().tokens();
+    if (tokens == null) {
+      tokens = astNode == null ? List.of() : astNode.getTokens();
+    }
+    for (Token token : tokens) {
+      addCommentLines(token);
+    }
   }
 
-  @Override
-  public void visitToken(Token token) {
+  private void addCommentLines(Token token) {
     if (seenFirstToken) {
       for (Trivia trivia : token.getTrivia()) {
         if (trivia.isComment()) {
-          String[] commentLines = getContents(trivia.getToken().getOriginalValue())
-            .split("(\r)?\n|\r", -1);
-          int line = trivia.getToken().getLine();
-
-          for (String commentLine : commentLines) {
-            if (!isBlank(commentLine)) {
-              addCommentLine(line);
-            }
-
-            line++;
-          }
+          addCommentLines(trivia.getToken().getOriginalValue(), trivia.getToken().getLine());
         }
       }
     }
@@ -69,24 +65,34 @@ public class CommentsVisitor extends RustVisitor {
     seenFirstToken = true;
   }
 
-  public boolean isBlank(String line) {
-    for (int i = 0; i < line.length(); i++) {
-      if (Character.isLetterOrDigit(line.charAt(i))) {
-        return false;
+  /**
+   * Adds the lines of the comment having a letter or a digit, scanning the comment in place. The two first and two
+   * last characters, delimiters of block comments, are not part of the contents.
+   */
+  private void addCommentLines(String comment, int firstLine) {
+    int length = comment.length();
+    int end = length > 3 ? (length - 2) : 0;
+    int line = firstLine;
+    boolean blank = true;
+    for (int i = 2; i < end; i++) {
+      char c = comment.charAt(i);
+      if (c == '\r' && i + 1 < end && comment.charAt(i + 1) == '\n') {
+        // the line ends at the \n
+        continue;
+      }
+      if (c == '\n' || c == '\r') {
+        if (!blank) {
+          addCommentLine(line);
+        }
+        line++;
+        blank = true;
+      } else if (blank && Character.isLetterOrDigit(c)) {
+        blank = false;
       }
     }
-
-    return true;
-  }
-
-  public String getContents(String comment) {
-    int l = comment.length();
-
-    String res = "";
-    if (l > 3) {
-      res = comment.substring(2, l - 2);
+    if (!blank) {
+      addCommentLine(line);
     }
-    return res;
   }
 
 }
@@ -22,40 +22,224 @@ package org.sonar.rust.metrics;
 
 import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.AstNodeType;
-import java.util.Arrays;
-import java.util.HashSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 import org.sonar.rust.RustGrammar;
 import org.sonar.rust.RustVisitor;
+import org.sonar.rust.api.RustKeyword;
+import org.sonar.rust.api.RustPunctuator;
+import org.sonar.rust.api.RustTokenType;
 
+/**
+ * Cyclomatic and cognitive complexity of each function of a file, and of the whole file.
+ * <p>
+ * The cyclomatic complexity of a function is 1, plus 1 for each {@code if} and {@code if let}, each loop, each match
+ * arm but the first, each {@code &&} and {@code ||}, each {@code ?} and each closure. The cognitive complexity follows
+ * the SonarSource definition: conditions, matches and loops cost 1 plus their nesting level, {@code else} branches and
+ * labelled jumps cost 1, and each sequence of like boolean operators costs 1. Closures increase the nesting level.
+ * <p>
+ * A function nested in another one is measured separately, and the file totals also include what is outside of any
+ * function, such as the initializer of a constant.
+ */
 public class ComplexityVisitor extends RustVisitor {
 
-  private int complexity;
+  // nodes through which a boolean operator may continue the sequence of a preceding one
+  private static final Set<AstNodeType> OPERAND_KINDS = Set.of(
+    RustGrammar.EXPRESSION,
+    RustGrammar.SCRUTINEE,
+    RustGrammar.EXPRESSION_TERM,
+    RustGrammar.EXPRESSION_TERM_EXCEPT_STRUCT,
+    RustGrammar.LAZY_AND,
+    RustGrammar.LAZY_OR);
 
-  private static boolean isSomethingComplex(AstNode node) {
-    // placeholder for ideas may have ideas later
-    return node.getChildren().size() > 42;
-  }
+  private final Deque<Scope> scopes = new ArrayDeque<>();
+  private final List<FunctionComplexity> functions = new ArrayList<>();
+  private int complexity;
+  private int cognitiveComplexity;
 
+  /**
+   * Cyclomatic complexity of the file.
+   */
   public int complexity() {
     return complexity;
   }
 
+  public int cognitiveComplexity() {
+    return cognitiveComplexity;
+  }
+
+  /**
+   * Complexity of the functions of the file, in the order in which they end.
+   */
+  public List<FunctionComplexity> functions() {
+    return Collections.unmodifiableList(functions);
+  }
+
   @Override
   public Set<AstNodeType> subscribedKinds() {
-    return new HashSet<>(Arrays.asList(
-      RustGrammar.STATEMENT));
+    return Set.of(
+      RustGrammar.FUNCTION,
+      RustGrammar.CLOSURE_EXPRESSION,
+      RustGrammar.IF_EXPRESSION,
+      RustGrammar.IF_LET_EXPRESSION,
+      RustGrammar.MATCH_EXPRESSION,
+      RustGrammar.MATCH_ARM,
+      RustGrammar.LOOP_EXPRESSION,
+      RustGrammar.BREAK_EXPRESSION,
+      RustGrammar.CONTINUE_EXPRESSION,
+      RustGrammar.EXPRESSION_TERM,
+      RustGrammar.EXPRESSION_TERM_EXCEPT_STRUCT,
+      RustGrammar.LAZY_AND,
+      RustGrammar.LAZY_OR,
+      RustGrammar.ERROR_PROPAGATION_EXPRESSION);
   }
 
   @Override
   public void visitFile(AstNode astNode) {
-    complexity = 0;
+    scopes.clear();
+    functions.clear();
+    // what is outside of any function
+    scopes.push(new Scope(0));
+  }
+
+  @Override
+  public void leaveFile(AstNode astNode) {
+    Scope file = scopes.pop();
+    complexity = file.cyclomatic;
+    cognitiveComplexity = file.cognitive;
+    for (FunctionComplexity function : functions) {
+      complexity += function.cyclomatic();
+      cognitiveComplexity += function.cognitive();
+    }
   }
 
   @Override
   public void visitNode(AstNode astNode) {
-    if (!isSomethingComplex(astNode)) {
-      complexity++;
+    AstNodeType type = astNode.getType();
+    if (type == RustGrammar.FUNCTION) {
+      scopes.push(new Scope(1));
+      return;
+    }
+    Scope scope = scopes.element();
+    if (type == RustGrammar.IF_EXPRESSION || type == RustGrammar.IF_LET_EXPRESSION) {
+      scope.cyclomatic++;
+      if (isElseIf(astNode)) {
+        scope.cognitive++;
+      } else {
+        scope.cognitive += 1 + scope.nesting;
+        scope.nesting++;
+      }
+      if (hasElseBlock(astNode)) {
+        scope.cognitive++;
+      }
+    } else if (type == RustGrammar.LOOP_EXPRESSION) {
+      scope.cyclomatic++;
+      scope.cognitive += 1 + scope.nesting;
+      scope.nesting++;
+    } else if (type == RustGrammar.MATCH_EXPRESSION) {
+      scope.cognitive += 1 + scope.nesting;
+      scope.nesting++;
+    } else if (type == RustGrammar.MATCH_ARM) {
+      if (astNode.getParent().getFirstChild(RustGrammar.MATCH_ARM) != astNode) {
+        scope.cyclomatic++;
+      }
+    } else if (type == RustGrammar.CLOSURE_EXPRESSION) {
+      scope.cyclomatic++;
+      scope.nesting++;
+    } else if (type == RustGrammar.BREAK_EXPRESSION || type == RustGrammar.CONTINUE_EXPRESSION) {
+      if (astNode.hasDirectChildren(RustGrammar.LIFETIME_OR_LABEL)) {
+        scope.cognitive++;
+      }
+    } else if (type == RustGrammar.ERROR_PROPAGATION_EXPRESSION) {
+      scope.cyclomatic++;
+    } else {
+      visitOperator(scope, astNode);
+    }
+  }
+
+  private static void visitOperator(Scope scope, AstNode astNode) {
+    AstNodeType operator = booleanOperator(astNode);
+    if (operator != null) {
+      scope.cyclomatic++;
+      if (operator != previousBooleanOperator(astNode)) {
+        scope.cognitive++;
+      }
+    } else if (astNode.getFirstChild().getType() == RustPunctuator.QUESTION) {
+      scope.cyclomatic++;
+    }
+  }
+
+  @Override
+  public void leaveNode(AstNode astNode) {
+    AstNodeType type = astNode.getType();
+    if (type == RustGrammar.FUNCTION) {
+      Scope scope = scopes.pop();
+      String name = astNode.getFirstChild(RustTokenType.IDENTIFIER).getTokenValue();
+      functions.add(new FunctionComplexity(name, astNode.getTokenLine(), scope.cyclomatic, scope.cognitive));
+    } else if (type == RustGrammar.LOOP_EXPRESSION
+      || type == RustGrammar.MATCH_EXPRESSION
+      || type == RustGrammar.CLOSURE_EXPRESSION
+      || ((type == RustGrammar.IF_EXPRESSION || type == RustGrammar.IF_LET_EXPRESSION) && !isElseIf(astNode))) {
+      scopes.element().nesting--;
+    }
+  }
+
+  // the condition of an if being a SCRUTINEE, an if directly in another one is its else branch
+  private static boolean isElseIf(AstNode node) {
+    AstNodeType parent = node.getParent().getType();
+    return parent == RustGrammar.IF_EXPRESSION || parent == RustGrammar.IF_LET_EXPRESSION;
+  }
+
+  private static boolean hasElseBlock(AstNode node) {
+    return node.hasDirectChildren(RustKeyword.KW_ELSE) && node.getLastChild().getType() == RustGrammar.BLOCK_EXPRESSION;
+  }
+
+  /**
+   * Operator of the given {@code a && b} or {@code a || b} expression or expression term, null when it is not one.
+   */
+  @CheckForNull
+  private static AstNodeType booleanOperator(AstNode node) {
+    AstNodeType type = node.getType();
+    if (type == RustGrammar.LAZY_AND) {
+      return RustPunctuator.ANDAND;
+    } else if (type == RustGrammar.LAZY_OR) {
+      return RustPunctuator.OROR;
+    } else if (type == RustGrammar.EXPRESSION_TERM || type == RustGrammar.EXPRESSION_TERM_EXCEPT_STRUCT) {
+      AstNodeType operator = node.getFirstChild().getType();
+      return operator == RustPunctuator.ANDAND || operator == RustPunctuator.OROR ? operator : null;
+    }
+    return null;
+  }
+
+  /**
+   * Operator preceding the given one in the same expression, without parentheses or any other expression between
+   * them, null when there is none.
+   */
+  @CheckForNull
+  private static AstNodeType previousBooleanOperator(AstNode operator) {
+    AstNode parent = operator.getParent();
+    while (parent != null && OPERAND_KINDS.contains(parent.getType())) {
+      AstNodeType previous = booleanOperator(parent);
+      if (previous != null) {
+        return previous;
+      }
+      parent = parent.getParent();
+    }
+    return null;
+  }
+
+  private static final class Scope {
+    private int cyclomatic;
+    private int cognitive;
+    private int nesting;
+
+    private Scope(int cyclomatic) {
+      this.cyclomatic = cyclomatic;
     }
   }
 
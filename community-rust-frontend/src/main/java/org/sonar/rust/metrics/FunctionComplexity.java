@@ -0,0 +1,56 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust.metrics;
+
+/**
+ * Cyclomatic and cognitive complexity of a function, as computed by the {@link ComplexityVisitor}.
+ */
+public final class FunctionComplexity {
+
+  private final String name;
+  private final int line;
+  private final int cyclomatic;
+  private final int cognitive;
+
+  FunctionComplexity(String name, int line, int cyclomatic, int cognitive) {
+    this.name = name;
+    this.line = line;
+    this.cyclomatic = cyclomatic;
+    this.cognitive = cognitive;
+  }
+
+  public String name() {
+    return name;
+  }
+
+  public int line() {
+    return line;
+  }
+
+  public int cyclomatic() {
+    return cyclomatic;
+  }
+
+  public int cognitive() {
+    return cognitive;
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust.metrics;
+
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of line numbers backed by a bitset, so that neither adding nor iterating the lines of a file allocates an
+ * object per line.
+ */
+public final class LineSet {
+
+  private final BitSet lines = new BitSet();
+
+  public void add(int line) {
+    lines.set(line);
+  }
+
+  /**
+   * Adds the lines from {@code fromLine} to {@code toLine}, both included.
+   */
+  public void addRange(int fromLine, int toLine) {
+    lines.set(fromLine, toLine + 1);
+  }
+
+  public boolean contains(int line) {
+    return line >= 0 && lines.get(line);
+  }
+
+  public int size() {
+    return lines.cardinality();
+  }
+
+  public boolean isEmpty() {
+    return lines.isEmpty();
+  }
+
+  /**
+   * First line of the set which is greater than or equal to the given line, -1 if there is none.
+   */
+  public int nextLine(int fromLine) {
+    return lines.nextSetBit(fromLine);
+  }
+
+  /**
+   * Calls the action on each line, in increasing order.
+   */
+  public void forEach(IntConsumer action) {
+    for (int line = lines.nextSetBit(0); line >= 0; line = lines.nextSetBit(line + 1)) {
+      action.accept(line);
+    }
+  }
+
+  public int[] toArray() {
+    return lines.stream().toArray();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof LineSet && lines.equals(((LineSet) o).lines);
+  }
+
+  @Override
+  public int hashCode() {
+    return lines.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return lines.toString();
+  }
+
+}
@@ -21,39 +21,55 @@
 package org.sonar.rust.metrics;
 
 import com.sonar.sslr.api.AstNode;
-import java.util.Collections;
-import java.util.HashSet;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
 import java.util.List;
-import java.util.Set;
-import org.sonar.rust.RustGrammar;
+import org.sonar.rust.RustSourceTokenizer;
 import org.sonar.rust.RustVisitor;
-import org.sonar.sslr.parser.LexerlessGrammar;
-import org.sonar.sslr.parser.ParserAdapter;
+import org.sonar.rust.api.RustPunctuator;
 
 public class LinesOfCodeVisitor extends RustVisitor {
 
-  private final ParserAdapter<LexerlessGrammar> lexer;
-  private final Set<Integer> linesOfCode = new HashSet<>();
+  private final RustSourceTokenizer lexer;
+  private LineSet linesOfCode = new LineSet();
 
-  public LinesOfCodeVisitor(ParserAdapter<LexerlessGrammar> parser) {
-    this.lexer = parser;
+  public LinesOfCodeVisitor(RustSourceTokenizer lexer) {
+    this.lexer = lexer;
   }
 
   @Override
   public void visitFile(AstNode node) {
-    linesOfCode.clear();
-    List<AstNode> tokens = lexer.parse(getContext().file().content()).getChildren(RustGrammar.ANY_TOKEN);
+    // a new set for each file, as the lines of code of the previous file may still be referenced
+    linesOfCode = new LineSet();
+    List<Token> tokens = getContext().tokens();
+    if (tokens == null) {
+      tokens = lexer.tokenize(getContext().content());
+    }
 
-    for (AstNode token : tokens) {
-      String[] tokenLines = token.getTokenValue().split("(\r)?\n|\r", -1);
+    for (Token token : tokens) {
+      // semicolons are matched outside of RustGrammar.ANY_TOKEN by the lexer and are not lines of code on their own
+      if (token.getType() == GenericTokenType.EOF || token.getType() == RustPunctuator.SEMI) {
+        continue;
+      }
+      linesOfCode.addRange(token.getLine(), token.getLine() + lineBreaks(token.getValue()));
+    }
+  }
 
-      for (int lineOffset = 0; lineOffset < tokenLines.length; lineOffset++) {
-        linesOfCode.add(token.getTokenLine() + lineOffset);
+  /**
+   * Number of line terminators of the given value, "\r\n" counting as one.
+   */
+  private static int lineBreaks(String value) {
+    int lineBreaks = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\n' || (c == '\r' && (i + 1 == value.length() || value.charAt(i + 1) != '\n'))) {
+        lineBreaks++;
       }
     }
+    return lineBreaks;
   }
 
-  public Set<Integer> linesOfCode() {
-    return Collections.unmodifiableSet(new HashSet<>(linesOfCode));
+  public LineSet linesOfCode() {
+    return linesOfCode;
   }
 }
@@ -20,52 +20,93 @@
  */
 package org.sonar.rust.metrics;
 
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import java.util.List;
 import java.util.Set;
 import org.sonar.rust.RustGrammar;
 import org.sonar.rust.RustLexer;
 import org.sonar.rust.RustParserConfiguration;
+import org.sonar.rust.RustVisitor;
 import org.sonar.rust.RustVisitorContext;
+import org.sonar.rust.RustVisitorDispatcher;
 
 public class MetricsVisitor {
 
   private final LinesOfCodeVisitor linesOfCodeVisitor;
   private final CommentsVisitor commentsVisitor;
   private final ComplexityVisitor complexityVisitor;
-  private int numberOfStatements;
-  private int numberOfFunctions;
+  private final NodeCounter statementCounter;
+  private final NodeCounter functionCounter;
+  private final RustVisitorDispatcher dispatcher;
 
   public MetricsVisitor(RustParserConfiguration conf) {
     linesOfCodeVisitor = new LinesOfCodeVisitor(RustLexer.create(conf));
     commentsVisitor = new CommentsVisitor();
     complexityVisitor = new ComplexityVisitor();
+    statementCounter = new NodeCounter(RustGrammar.STATEMENT);
+    functionCounter = new NodeCounter(RustGrammar.FUNCTION);
+    dispatcher = new RustVisitorDispatcher(visitors());
+  }
+
+  /**
+   * Visitors computing the metrics, to be driven by a {@link RustVisitorDispatcher} shared with other visitors
+   * instead of calling {@link #scanFile(RustVisitorContext)}.
+   */
+  public List<RustVisitor> visitors() {
+    return List.of(linesOfCodeVisitor, commentsVisitor, complexityVisitor, statementCounter, functionCounter);
   }
 
   public void scanFile(RustVisitorContext context) {
-    linesOfCodeVisitor.scanFile(context);
-    commentsVisitor.scanFile(context);
-    complexityVisitor.scanFile(context);
-    numberOfStatements = context.rootTree().getDescendants(RustGrammar.STATEMENT).size();
-    numberOfFunctions = context.rootTree().getDescendants(RustGrammar.FUNCTION).size();
+    dispatcher.scanFile(context);
   }
 
-  public Set<Integer> linesOfCode() {
+  public LineSet linesOfCode() {
     return linesOfCodeVisitor.linesOfCode();
   }
 
-  public Set<Integer> commentLines() {
+  public LineSet commentLines() {
     return commentsVisitor.commentLines();
   }
 
   public int numberOfStatements() {
-    return numberOfStatements;
+    return statementCounter.count;
   }
 
   public int numberOfFunctions() {
-    return numberOfFunctions;
+    return functionCounter.count;
   }
 
   public int complexity() {
     return complexityVisitor.complexity();
   }
 
+  public int cognitiveComplexity() {
+    return complexityVisitor.cognitiveComplexity();
+  }
+
+  private static class NodeCounter extends RustVisitor {
+    private final AstNodeType kind;
+    private int count;
+
+    NodeCounter(AstNodeType kind) {
+      this.kind = kind;
+    }
+
+    @Override
+    public Set<AstNodeType> subscribedKinds() {
+      return Set.of(kind);
+    }
+
+    @Override
+    public void visitFile(AstNode node) {
+      count = 0;
+    }
+
+    @Override
+    public void visitNode(AstNode node) {
+      count++;
+    }
+  }
+
 }
@@ -0,0 +1,87 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import org.junit.jupiter.api.Test;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RustFileContentTest {
+
+  @Test
+  void empty() {
+    RustFileContent content = new RustFileContent("");
+
+    assertThat(content.lineCount()).isEqualTo(1);
+    assertThat(content.lineLength(1)).isZero();
+    assertThat(content.line(0)).isEqualTo(1);
+  }
+
+  @Test
+  void lines() {
+    RustFileContent content = new RustFileContent("fn a() {}\nfn bc() {}\r\n\rfn d() {}\n");
+
+    assertThat(content.text()).startsWith("fn a()");
+    assertThat(content.lineCount()).isEqualTo(5);
+    assertThat(content.lineStart(1)).isZero();
+    assertThat(content.lineEnd(1)).isEqualTo(9);
+    assertThat(content.lineStart(2)).isEqualTo(10);
+    assertThat(content.lineLength(2)).isEqualTo(10);
+    assertThat(content.lineStart(3)).isEqualTo(22);
+    assertThat(content.lineLength(3)).isZero();
+    assertThat(content.lineStart(4)).isEqualTo(23);
+    assertThat(content.lineLength(4)).isEqualTo(9);
+    assertThat(content.lineLength(5)).isZero();
+
+    assertThat(content.line(0)).isEqualTo(1);
+    assertThat(content.line(9)).isEqualTo(1);
+    assertThat(content.line(10)).isEqualTo(2);
+    assertThat(content.line(21)).isEqualTo(2);
+    assertThat(content.line(22)).isEqualTo(3);
+    assertThat(content.line(25)).isEqualTo(4);
+    assertThat(content.line(33)).isEqualTo(5);
+  }
+
+  @Test
+  void manyLines() {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      text.append("line").append(i).append('\n');
+    }
+    RustFileContent content = new RustFileContent(text.toString());
+
+    assertThat(content.lineCount()).isEqualTo(1001);
+    assertThat(content.text().substring(content.lineStart(500), content.lineEnd(500))).isEqualTo("line499");
+    assertThat(content.line(content.lineStart(500) + 3)).isEqualTo(500);
+  }
+
+  @Test
+  void outOfBounds() {
+    RustFileContent content = new RustFileContent("a\nb");
+
+    assertThatThrownBy(() -> content.lineStart(0)).isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> content.lineEnd(3)).isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> content.line(4)).isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+}
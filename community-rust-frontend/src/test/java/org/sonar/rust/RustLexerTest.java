@@ -22,6 +22,7 @@ package org.sonar.rust;
 
 import com.google.common.base.Charsets;
 import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.RecognitionException;
 import com.sonar.sslr.api.Token;
 import com.sonar.sslr.impl.ast.AstXmlPrinter;
 import org.junit.jupiter.api.Test;
@@ -29,11 +30,13 @@ import org.sonar.sslr.parser.LexerlessGrammar;
 import org.sonar.sslr.parser.ParserAdapter;
 import org.sonar.sslr.tests.Assertions;
 
+import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class RustLexerTest {
   @Test
@@ -47,12 +50,20 @@ class RustLexerTest {
     List<Token> li = RustLexer.create(RustParserConfiguration.builder()
         .setCharset(Charsets.UTF_8)
         .build())
-      .parse(source)
-      .getTokens();
+      .tokenize(source);
 
     return li;
   }
 
+  @Test
+  void unreadableFile() {
+    RustSourceTokenizer lexer = RustLexer.create(RustParserConfiguration.builder()
+      .setCharset(StandardCharsets.UTF_8)
+      .build());
+    assertThatThrownBy(() -> lexer.tokenize(new File("does-not-exist.rs")))
+      .isInstanceOf(RecognitionException.class);
+  }
+
   @Test
   void testTokens() {
     Assertions.assertThat(RustLexer.create().build().rule(RustLexer.TOKENS))
@@ -0,0 +1,149 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.Token;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RustParallelParserTest {
+
+  private static final RustParserPool POOL = new RustParserPool(RustParserConfiguration.builder()
+    .setCharset(StandardCharsets.UTF_8)
+    .build());
+  private static final ForkJoinPool THREADS = new ForkJoinPool(4);
+  private static final RustParallelParser PARSER = new RustParallelParser(POOL, THREADS);
+
+  @AfterAll
+  static void shutdown() {
+    THREADS.shutdown();
+  }
+
+  @Test
+  void sameTreeAsSequentialParse() {
+    var content = new RustFileContent(source(300));
+    AstNode expected = POOL.parse(content.chars());
+    AstNode tree = PARSER.parse(content, tokens(content));
+
+    assertThat(tree.is(RustGrammar.COMPILATION_UNIT)).isTrue();
+    assertThat(tree.getChildren(RustGrammar.STATEMENT)).hasSize(expected.getChildren(RustGrammar.STATEMENT).size());
+    assertThat(describe(tree.getTokens())).isEqualTo(describe(expected.getTokens()));
+    assertThat(kinds(tree)).isEqualTo(kinds(expected));
+    assertThat(tree.getLastChild().is(GenericTokenType.EOF)).isTrue();
+    AstNode lastFunction = tree.getLastChild(RustGrammar.STATEMENT);
+    assertThat(lastFunction.getFromIndex()).isEqualTo(expected.getLastChild(RustGrammar.STATEMENT).getFromIndex());
+    assertThat(lastFunction.getParent()).isSameAs(tree);
+  }
+
+  @Test
+  void smallFilesAreParsedAtOnce() {
+    var content = new RustFileContent("fn main() {}\nfn other() {}\n");
+
+    assertThat(describe(PARSER.parse(content, tokens(content)).getTokens()))
+      .isEqualTo(describe(POOL.parse(content.chars()).getTokens()));
+  }
+
+  @Test
+  void errorOfTheWholeFile() {
+    String source = source(300);
+    int middle = source.indexOf("fn f150");
+    var content = new RustFileContent(source.substring(0, middle) + "fn broken( {}\n" + source.substring(middle));
+
+    assertThatThrownBy(() -> PARSER.parse(content, tokens(content)))
+      .isInstanceOf(RecognitionException.class)
+      .hasMessageContaining("line " + content.line(middle));
+  }
+
+  @Test
+  void timeoutSharedBySpans() {
+    var pool = new RustParserPool(RustParserConfiguration.builder()
+      .setCharset(StandardCharsets.UTF_8)
+      .setParseTimeout(Duration.ofNanos(1))
+      .build());
+    var content = new RustFileContent(source(3000));
+
+    try (var parser = new RustParallelParser(pool, 2)) {
+      assertThatThrownBy(() -> parser.parse(content, tokens(content))).isInstanceOf(RustParseTimeoutException.class);
+    }
+  }
+
+  @Test
+  void itemsNotDelimitedAsTheGrammarDoes() {
+    // "}" ends the first span, while the match is part of an expression
+    String source = "// " + "-".repeat(RustParallelParser.MIN_SPAN_LENGTH) + "\n"
+      + "const A: i32 = match 1 { _ => 2 } + 1;\n"
+      + source(300).substring(source(0).length());
+    var content = new RustFileContent(source);
+
+    assertThat(describe(PARSER.parse(content, tokens(content)).getTokens()))
+      .isEqualTo(describe(POOL.parse(content.chars()).getTokens()));
+  }
+
+  private static String source(int functions) {
+    var source = new StringBuilder("#![allow(dead_code)]\n");
+    for (int i = 0; i < functions; i++) {
+      source.append("/// function ").append(i).append("\n")
+        .append("pub fn f").append(i).append("(x: i32) -> i32 {\n")
+        .append("    // comment\n")
+        .append("    if x > ").append(i).append(" { x - 1 } else { x + 1 }\n")
+        .append("}\n")
+        .append("const C").append(i).append(": S = S { a: \"}\" };\n");
+    }
+    return source.toString();
+  }
+
+  private static List<Token> tokens(RustFileContent content) {
+    return new RustTokenizer().tokenize(content.chars());
+  }
+
+  private static List<String> describe(List<Token> tokens) {
+    return tokens.stream()
+      .map(token -> token.getValue() + "@" + token.getLine() + ":" + token.getColumn() + "/" + token.getTrivia().size())
+      .collect(Collectors.toList());
+  }
+
+  private static List<String> kinds(AstNode tree) {
+    List<String> kinds = new ArrayList<>();
+    collectKinds(tree, kinds);
+    return kinds;
+  }
+
+  private static void collectKinds(AstNode node, List<String> kinds) {
+    if (!node.is(RustGrammar.SPC)) {
+      kinds.add(node.getName());
+    }
+    node.getChildren().forEach(child -> collectKinds(child, kinds));
+  }
+
+}
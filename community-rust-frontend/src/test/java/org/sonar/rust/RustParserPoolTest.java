@@ -0,0 +1,127 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import com.sonar.sslr.api.RecognitionException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RustParserPoolTest {
+
+  private static final char[] SOURCE = "fn main() {\n    let x = 1;\n}\n".toCharArray();
+
+  @Test
+  void parsersReused() {
+    RustParserPool pool = new RustParserPool(configuration());
+
+    assertThat(pool.parse(SOURCE).getTokens()).isNotEmpty();
+    assertThat(pool.parse(SOURCE).getTokens()).isNotEmpty();
+    assertThat(pool.idleParsers()).isOne();
+  }
+
+  @Test
+  void parserGivenBackOnError() {
+    RustParserPool pool = new RustParserPool(configuration());
+
+    assertThatThrownBy(() -> pool.parse("fn main( {".toCharArray())).isInstanceOf(RecognitionException.class);
+    assertThat(pool.idleParsers()).isOne();
+    assertThat(pool.parse(SOURCE).getTokens()).isNotEmpty();
+    assertThat(pool.idleParsers()).isOne();
+  }
+
+  @Test
+  void warmUp() {
+    RustParserPool pool = new RustParserPool(configuration());
+
+    pool.warmUp();
+    pool.warmUp();
+    assertThat(pool.parse(SOURCE).getTokens()).isNotEmpty();
+    assertThat(pool.idleParsers()).isOne();
+  }
+
+  @Test
+  void parserBuiltOnFailedWarmUp() {
+    var attempts = new AtomicInteger();
+    RustParserPool pool = new RustParserPool(() -> {
+      if (attempts.getAndIncrement() == 0) {
+        throw new IllegalStateException("warm-up failure");
+      }
+      return RustSourceParser.create(configuration());
+    });
+
+    pool.warmUp();
+    assertThat(pool.parse(SOURCE).getTokens()).isNotEmpty();
+    assertThat(pool.parse(SOURCE).getTokens()).isNotEmpty();
+    assertThat(attempts).hasValue(2);
+    assertThat(pool.idleParsers()).isOne();
+  }
+
+  @Test
+  void warmUpOfUsedPool() {
+    RustParserPool pool = new RustParserPool(configuration());
+    pool.parse(SOURCE);
+
+    pool.warmUp();
+    assertThat(pool.idleParsers()).isOne();
+  }
+
+  @Test
+  void concurrentParses() throws Exception {
+    RustParserPool pool = new RustParserPool(configuration());
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      source.append("fn f").append(i).append("(x: u32) -> u32 { let s = \"a\"; x * ").append(i).append(" }\n");
+    }
+    char[] chars = source.toString().toCharArray();
+    int expected = pool.parse(chars).getTokens().size();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int i = 0; i < 40; i++) {
+        results.add(executor.submit(() -> pool.parse(chars).getTokens().size()));
+      }
+      for (Future<Integer> result : results) {
+        assertThat(result.get()).isEqualTo(expected);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(pool.idleParsers()).isBetween(1, 4);
+  }
+
+  private static RustParserConfiguration configuration() {
+    return RustParserConfiguration.builder()
+      .setCharset(StandardCharsets.UTF_8)
+      .build();
+  }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.impl.Parser;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RustParserTest {
+
+  private static final String SOURCE = "fn main() {\n" +
+    "    let x = 1;\n" +
+    "}\n";
+
+  @Test
+  void parseWithoutTimeout() {
+    AstNode tree = parser(Duration.ZERO).parse(SOURCE);
+    assertThat(tree.getTokens()).isNotEmpty();
+  }
+
+  @Test
+  void parseWithinTimeout() {
+    RustSourceParser parser = parser(Duration.ofMinutes(1));
+    assertThat(parser.parse(SOURCE).getTokens()).isNotEmpty();
+    // the deadline is restarted for every file
+    assertThat(parser.parse(SOURCE).getTokens()).isNotEmpty();
+  }
+
+  @Test
+  void parseFile(@TempDir Path dir) throws IOException {
+    Path path = dir.resolve("main.rs");
+    Files.write(path, ("\uFEFF" + SOURCE).getBytes(StandardCharsets.UTF_8));
+
+    AstNode tree = parser(Duration.ZERO).parse(path.toFile());
+    assertThat(tree.getToken().getValue()).isEqualTo("fn");
+    assertThat(tree.getToken().getURI()).isEqualTo(path.toUri());
+  }
+
+  @Test
+  void parseMissingFile(@TempDir Path dir) {
+    File file = dir.resolve("missing.rs").toFile();
+
+    assertThatThrownBy(() -> parser(Duration.ZERO).parse(file))
+      .isInstanceOf(RecognitionException.class);
+  }
+
+  @Test
+  void parseChars() {
+    RustSourceParser parser = RustSourceParser.create(RustParserConfiguration.builder()
+      .setCharset(StandardCharsets.UTF_8)
+      .build());
+    char[] source = SOURCE.toCharArray();
+
+    AstNode tree = parser.parse(source);
+    assertThat(tree.getTokens()).extracting(t -> t.getValue()).startsWith("fn", "main");
+    assertThat(tree.getTokens().get(5).getLine()).isEqualTo(2);
+    assertThat(source).containsExactly(SOURCE.toCharArray());
+  }
+
+  @Test
+  void sslrParser(@TempDir Path dir) throws IOException {
+    Parser<Grammar> parser = RustParser.create(RustParserConfiguration.builder()
+      .setCharset(StandardCharsets.UTF_8)
+      .setParseTimeout(Duration.ofMinutes(1))
+      .build());
+    Path path = dir.resolve("main.rs");
+    Files.write(path, SOURCE.getBytes(StandardCharsets.UTF_8));
+
+    assertThat(parser.getGrammar().rule(RustGrammar.COMPILATION_UNIT)).isNotNull();
+    assertThat(parser.parse(SOURCE).getTokens()).isNotEmpty();
+    assertThat(parser.parse(path.toFile()).getToken().getURI()).isEqualTo(path.toUri());
+    assertThatThrownBy(() -> parser.parse(List.of()))
+      .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void parseError() {
+    assertThatThrownBy(() -> parser(Duration.ZERO).parse("fn main() {\n  let x = ;\n"))
+      .isInstanceOf(RecognitionException.class)
+      .hasMessageStartingWith("Parse error at line 2 column")
+      .extracting(e -> ((RecognitionException) e).getLine()).isEqualTo(2);
+  }
+
+  @Test
+  void parseTimeout() {
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      source.append(SOURCE);
+    }
+
+    assertThatThrownBy(() -> parser(Duration.ofNanos(1)).parse(source.toString()))
+      .isInstanceOf(RustParseTimeoutException.class)
+      .hasMessage("Parsing took longer than 0 ms");
+  }
+
+  private static RustSourceParser parser(Duration timeout) {
+    return RustSourceParser.create(RustParserConfiguration.builder()
+      .setCharset(StandardCharsets.UTF_8)
+      .setParseTimeout(timeout)
+      .build());
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.RecognitionException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RustRecoveringParserTest {
+
+  private static final RustParserConfiguration CONFIGURATION = RustParserConfiguration.builder()
+    .setCharset(StandardCharsets.UTF_8)
+    .build();
+  private static final RustParserPool POOL = new RustParserPool(CONFIGURATION);
+  private static final RustRecoveringParser PARSER = new RustRecoveringParser(CONFIGURATION);
+
+  @Test
+  void itemsWhichDoNotParseAreSkipped() {
+    AstNode tree = parse("fn a() {}\n"
+      + "fn b() { let = ; }\n"
+      + "fn c() {\n"
+      + "  if x {}\n"
+      + "}\n");
+
+    assertThat(tree.is(RustGrammar.COMPILATION_UNIT)).isTrue();
+    assertThat(items(tree)).containsExactly("STATEMENT@1", "PARSE_ERROR@2", "STATEMENT@3");
+    // the positions of the remaining items are unchanged
+    assertThat(tree.getFirstDescendant(RustGrammar.IF_EXPRESSION).getTokenLine()).isEqualTo(4);
+    assertThat(tree.getChildren(RustRecoveringParser.PARSE_ERROR).get(0).getTokenValue()).isEqualTo("fn");
+  }
+
+  @Test
+  void severalErrors() {
+    AstNode tree = parse("#[test]\n"
+      + "fn a() { let = ; }\n"
+      + "struct S;\n"
+      + "impl S { fn b( {} }\n"
+      + "const C: [u8; 2] = [1, 2];\n");
+
+    assertThat(items(tree)).containsExactly("PARSE_ERROR@1", "STATEMENT@3", "PARSE_ERROR@4", "STATEMENT@5");
+    // the attributes are part of the item
+    assertThat(tree.getFirstChild(RustRecoveringParser.PARSE_ERROR).getTokenValue()).isEqualTo("#");
+  }
+
+  @Test
+  void unterminatedItem() {
+    AstNode tree = parse("fn a() {}\nfn b() {\n  let x = 1;\n");
+
+    assertThat(items(tree)).containsExactly("STATEMENT@1", "PARSE_ERROR@2");
+  }
+
+  @Test
+  void strayClosingBrace() {
+    AstNode tree = parse("fn a() {}\n}\nfn b() {}\n");
+
+    assertThat(items(tree)).containsExactly("STATEMENT@1", "PARSE_ERROR@2", "STATEMENT@3");
+  }
+
+  @Test
+  void bracesOfLiteralsAndComments() {
+    AstNode tree = parse("fn a() { let s = \"}\"; let c = '}'; /* } */ let = ; }\n"
+      + "fn b() {}\n");
+
+    assertThat(items(tree)).containsExactly("PARSE_ERROR@1", "STATEMENT@2");
+  }
+
+  @Test
+  void trailingMacroInvocation() {
+    AstNode tree = parse("fn a() { let = ; }\nm!(x)\n");
+
+    assertThat(items(tree)).containsExactly("PARSE_ERROR@1");
+    assertThat(tree.getChildren(RustGrammar.MACRO_INVOCATION)).hasSize(1);
+  }
+
+  @Test
+  void tooManyErrors() {
+    String content = "fn f() { let = ; }\n".repeat(RustRecoveringParser.MAX_SKIPPED_ITEMS + 1);
+
+    assertThatThrownBy(() -> parse(content))
+      .isInstanceOf(RecognitionException.class)
+      .hasFieldOrPropertyWithValue("line", 1);
+  }
+
+  @Test
+  void timeoutCountedFromTheFailedParse() {
+    var configuration = RustParserConfiguration.builder()
+      .setCharset(StandardCharsets.UTF_8)
+      .setParseTimeout(Duration.ofMinutes(1))
+      .build();
+    var content = new RustFileContent("fn a() { let x = 1; }\n".repeat(500) + "fn b() { let = ; }\n");
+    var error = new RecognitionException(501, "Parse error");
+    // the failed parse started longer than the timeout ago
+    long startTime = System.nanoTime() - Duration.ofMinutes(2).toNanos();
+
+    assertThatThrownBy(() -> new RustRecoveringParser(configuration).parse(content, error, startTime))
+      .isInstanceOf(RustParseTimeoutException.class);
+  }
+
+  private static List<String> items(AstNode tree) {
+    return tree.getChildren().stream()
+      .filter(child -> child.is(RustGrammar.STATEMENT, RustRecoveringParser.PARSE_ERROR))
+      .map(child -> child.getName() + "@" + child.getTokenLine())
+      .collect(Collectors.toList());
+  }
+
+  private static AstNode parse(String source) {
+    var content = new RustFileContent(source);
+    RecognitionException error = null;
+    try {
+      POOL.parse(content.chars());
+    } catch (RecognitionException e) {
+      error = e;
+    }
+    assertThat(error).isNotNull();
+    return PARSER.parse(content, error, System.nanoTime());
+  }
+
+}
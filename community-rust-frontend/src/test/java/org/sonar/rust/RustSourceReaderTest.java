@@ -0,0 +1,92 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RustSourceReaderTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void read() throws IOException {
+    RustSourceReader reader = new RustSourceReader(StandardCharsets.UTF_8);
+
+    assertThat(reader.read(file("a.rs", "fn main() { let s = \"é中\"; }\n"))).containsExactly("fn main() { let s = \"é中\"; }\n".toCharArray());
+  }
+
+  @Test
+  void empty() throws IOException {
+    assertThat(new RustSourceReader(StandardCharsets.UTF_8).read(file("a.rs", ""))).isEmpty();
+  }
+
+  @Test
+  void byteOrderMark() throws IOException {
+    RustSourceReader reader = new RustSourceReader(StandardCharsets.UTF_8);
+
+    assertThat(reader.read(file("a.rs", "\uFEFFfn main() {}"))).containsExactly("fn main() {}".toCharArray());
+    assertThat(reader.read(file("b.rs", "\uFEFF"))).isEmpty();
+  }
+
+  @Test
+  void charset() throws IOException {
+    Path path = dir.resolve("a.rs");
+    Files.write(path, "// é".getBytes(StandardCharsets.ISO_8859_1));
+
+    assertThat(new RustSourceReader(StandardCharsets.ISO_8859_1).read(path)).containsExactly("// é".toCharArray());
+    assertThat(new RustSourceReader(StandardCharsets.UTF_8).read(path)).containsExactly("// \uFFFD".toCharArray());
+  }
+
+  @Test
+  void bufferReused() throws IOException {
+    RustSourceReader reader = new RustSourceReader(StandardCharsets.UTF_8);
+    String small = "fn a() {}\n";
+    String large = small.repeat(1000);
+
+    assertThat(new String(reader.read(file("a.rs", small)))).isEqualTo(small);
+    assertThat(new String(reader.read(file("b.rs", large)))).isEqualTo(large);
+    assertThat(new String(reader.read(file("c.rs", small)))).isEqualTo(small);
+  }
+
+  @Test
+  void missingFile() {
+    RustSourceReader reader = new RustSourceReader(StandardCharsets.UTF_8);
+
+    assertThatThrownBy(() -> reader.read(dir.resolve("missing.rs"))).isInstanceOf(IOException.class);
+  }
+
+  private Path file(String name, String content) throws IOException {
+    Path path = dir.resolve(name);
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+
+}
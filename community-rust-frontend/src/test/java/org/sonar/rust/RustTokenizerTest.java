@@ -0,0 +1,177 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.sonar.rust.api.RustKeyword;
+import org.sonar.rust.api.RustPunctuator;
+import org.sonar.rust.api.RustTokenType;
+import org.sonar.sslr.parser.LexerlessGrammar;
+import org.sonar.sslr.parser.ParserAdapter;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RustTokenizerTest {
+
+  private static final ParserAdapter<LexerlessGrammar> GRAMMAR_LEXER = new ParserAdapter<>(StandardCharsets.UTF_8, RustLexer.create().build());
+
+  private final RustTokenizer tokenizer = new RustTokenizer();
+
+  @Test
+  void tokens() {
+    List<Token> tokens = tokenizer.tokenize("fn main() {\n  // comment\n  let x = 1u8;\n}");
+
+    assertThat(tokens).extracting(Token::getValue)
+      .containsExactly("fn", "main", "(", ")", "{", "let", "x", "=", "1u8", ";", "}", "");
+    assertThat(tokens.get(0).getType()).isEqualTo(RustKeyword.KW_FN);
+    assertThat(tokens.get(1).getType()).isEqualTo(RustTokenType.IDENTIFIER);
+    assertThat(tokens.get(2).getType()).isSameAs(RustTokenizer.UNTYPED);
+    assertThat(tokens.get(7).getType()).isEqualTo(RustPunctuator.EQ);
+    assertThat(tokens.get(8).getType()).isEqualTo(RustTokenType.INTEGER_LITERAL);
+    assertThat(tokens.get(9).getType()).isEqualTo(RustPunctuator.SEMI);
+    assertThat(tokens.get(11).getType()).isEqualTo(GenericTokenType.EOF);
+
+    Token let = tokens.get(5);
+    assertThat(let.getLine()).isEqualTo(3);
+    assertThat(let.getColumn()).isEqualTo(2);
+    assertThat(let.getTrivia()).extracting(trivia -> trivia.getToken().getValue()).containsExactly("// comment");
+  }
+
+  @Test
+  void typedKeywordsAndPunctuators() {
+    List<Token> tokens = tokenizer.tokenize("pub fn f<'_>(self: &Self) -> _ { a::b >>= true; r#fn }");
+
+    assertThat(tokens).extracting(Token::getType).containsExactly(
+      RustKeyword.KW_PUB, RustKeyword.KW_FN, RustTokenType.IDENTIFIER,
+      RustPunctuator.LT, RustTokenizer.UNTYPED, RustTokenizer.UNTYPED, RustPunctuator.GT,
+      RustTokenizer.UNTYPED, RustKeyword.KW_SELF_VALUE, RustPunctuator.COLON, RustPunctuator.AND, RustKeyword.KW_SELF_TYPE, RustTokenizer.UNTYPED,
+      RustPunctuator.RARROW, RustTokenType.IDENTIFIER, RustTokenizer.UNTYPED,
+      RustTokenType.IDENTIFIER, RustPunctuator.PATHSEP, RustTokenType.IDENTIFIER, RustPunctuator.SHREQ, RustTokenType.BOOLEAN_LITERAL,
+      RustPunctuator.SEMI, RustTokenType.IDENTIFIER, RustTokenizer.UNTYPED,
+      GenericTokenType.EOF);
+  }
+
+  @Test
+  void sameTokensAsGrammar() {
+    assertSameTokens("");
+    assertSameTokens("  \n\r\n\r ");
+    assertSameTokens("/* a */ // b\n/* c\n */");
+    assertSameTokens("/* unclosed");
+    assertSameTokens("fn main() {\n    println!(\"Hello, world!\");\n}\n");
+
+    // literals
+    assertSameTokens("'a' '\\'' '\\n' '\\x7f' '\\u{1F_600}' '\\\\' 'é' '\uD83D\uDE00'");
+    assertSameTokens("\"a\\\"b\" \"\\n//\" \"multi\n  line // not a comment\" \"\\u{0}\" \"line\\\n continued\"");
+    assertSameTokens("r\"raw\" r#\"raw \"quoted\"\"# r##\"a\"#b\"## r#\"x\"#y\"#");
+    assertSameTokens("b'a' b'\\'' b'\\x00' b'\\\\' b\"bytes\\\"\\x41\" br\"raw\" br#\"raw\"#");
+    assertSameTokens("1 1_000 0x1F 0o17 0b1010_1010 1u8 2usize 3i128 1.0 1.0f32 2f64 1e10 1E-5 1.5e+3 1. 1.. 1.a 1._");
+    assertSameTokens("1 // swallowed\n+ 2 /* too */ - 3");
+    assertSameTokens("true false trueish falsey");
+
+    // identifiers, lifetimes and punctuators
+    assertSameTokens("r#type r#self _ _x ünïcödé x\u0301");
+    assertSameTokens("'a 'static '_ <'a, T: 'a>");
+    assertSameTokens("a::b -> => ..= ... .. <<= >>= && || != == += @ # $ ? ~");
+    assertSameTokens("a; b // c\n ;");
+  }
+
+  @Test
+  void sameQuirksAsGrammar() {
+    // keywords at the very end of the input are split
+    assertSameTokens("self");
+    assertSameTokens("x fn\n");
+    assertSameTokens("x fn\r\n");
+    assertSameTokens("x fn\n\n");
+    // code points above U+1FFFF are not allowed in strings
+    assertSameError("\"\uD840\uDC00\"");
+  }
+
+  @Test
+  void errors() {
+    assertSameError("a;;");
+    assertSameError("; a");
+    assertSameError("a ; ;");
+    assertSameError("\\");
+    assertSameError("a\fb");
+    assertSameError("\"unclosed");
+
+    assertThatThrownBy(() -> tokenizer.tokenize("fn\n  \\"))
+      .isInstanceOf(RecognitionException.class)
+      .hasMessage("Parse error at line 2 column 3");
+  }
+
+  @Test
+  void chars() {
+    String source = "/* a */ r#\"b\"# \"c\" match x { _ => 'ß' } // d\nself";
+
+    assertThat(describe(tokenizer.tokenize(source.toCharArray()))).isEqualTo(describe(GRAMMAR_LEXER.parse(source).getTokens()));
+  }
+
+  @Test
+  void lexer() {
+    RustSourceTokenizer lexer = RustLexer.create(RustParserConfiguration.builder().setCharset(StandardCharsets.UTF_8).build());
+
+    assertThat(lexer.tokenize("let x = 1;")).extracting(Token::getValue).containsExactly("let", "x", "=", "1", ";", "");
+  }
+
+  private void assertSameTokens(String source) {
+    assertThat(describe(tokenizer.tokenize(source))).isEqualTo(describe(GRAMMAR_LEXER.parse(source).getTokens()));
+  }
+
+  private void assertSameError(String source) {
+    assertThatThrownBy(() -> GRAMMAR_LEXER.parse(source)).isInstanceOf(RecognitionException.class);
+    assertThatThrownBy(() -> tokenizer.tokenize(source)).isInstanceOf(RecognitionException.class);
+  }
+
+  private static List<String> describe(List<Token> tokens) {
+    return tokens.stream().map(RustTokenizerTest::describe).collect(Collectors.toList());
+  }
+
+  /**
+   * Keywords and punctuators are typed by the tokenizer only, and are described with the type given by the grammar.
+   */
+  private static String describe(Token token) {
+    String type = token.getType().getName();
+    if (token.getType() instanceof RustKeyword) {
+      type = RustTokenType.IDENTIFIER.getName();
+    } else if (token.getType() instanceof RustPunctuator) {
+      type = RustTokenizer.UNTYPED.getName();
+    }
+    StringBuilder sb = new StringBuilder()
+      .append(type).append(' ')
+      .append(token.getValue()).append(' ')
+      .append(token.getLine()).append(':').append(token.getColumn());
+    for (Trivia trivia : token.getTrivia()) {
+      sb.append(" [").append(describe(trivia.getToken())).append(']');
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.Token;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.sonar.sslr.parser.LexerlessGrammar;
+import org.sonar.sslr.parser.ParserAdapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RustVisitorDispatcherTest {
+
+  private static final String CONTENT = "fn main() {\n" +
+    "  let a = 1;\n" +
+    "  if a > 0 { println!(\"positive\"); }\n" +
+    "}\n" +
+    "fn other() -> i32 { 42 }\n";
+
+  @Test
+  void dispatchesNodesToSubscribedVisitors() {
+    AstNode tree = new ParserAdapter<LexerlessGrammar>(StandardCharsets.UTF_8, RustGrammar.create().build()).parse(CONTENT);
+    RecordingVisitor functions = new RecordingVisitor(RustGrammar.FUNCTION);
+    RecordingVisitor statements = new RecordingVisitor(RustGrammar.STATEMENT, RustGrammar.FUNCTION);
+    TokenVisitor tokens = new TokenVisitor();
+
+    RustVisitorContext context = new RustVisitorContext(file(), tree);
+    new RustVisitorDispatcher(List.of(functions, statements, tokens)).scanFile(context);
+
+    assertThat(functions.events).containsExactly("visitFile",
+      "visit FUNCTION 1", "leave FUNCTION 1",
+      "visit FUNCTION 5", "leave FUNCTION 5",
+      "leaveFile");
+    assertThat(statements.visited).hasSize(tree.getDescendants(RustGrammar.STATEMENT).size() + 2);
+    assertThat(tokens.tokens).isEqualTo(tree.getTokens());
+    assertThat(functions.contexts).containsExactly(context);
+    assertThat(statements.contexts).containsExactly(context);
+  }
+
+  @Test
+  void contextReleasedAfterScan() {
+    AstNode tree = new ParserAdapter<LexerlessGrammar>(StandardCharsets.UTF_8, RustGrammar.create().build()).parse(CONTENT);
+    RecordingVisitor visitor = new RecordingVisitor(RustGrammar.FUNCTION);
+    RustVisitor failing = new RustVisitor() {
+      @Override
+      public void visitFile(AstNode node) {
+        throw new IllegalStateException("failure");
+      }
+    };
+    RustVisitorDispatcher dispatcher = new RustVisitorDispatcher(List.of(visitor, failing));
+
+    assertThatThrownBy(() -> dispatcher.scanFile(new RustVisitorContext(file(), tree))).isInstanceOf(IllegalStateException.class);
+    assertThat(visitor.contexts).hasSize(1);
+    assertThat(visitor.getContext()).isNull();
+    assertThat(failing.getContext()).isNull();
+  }
+
+  @Test
+  void scanFileWithoutTree() {
+    RecordingVisitor visitor = new RecordingVisitor(RustGrammar.FUNCTION);
+    new RustVisitorDispatcher(List.of(visitor)).scanFile(new RustVisitorContext(file(), new com.sonar.sslr.api.RecognitionException(1, "error")));
+    assertThat(visitor.events).containsExactly("visitFile", "leaveFile");
+  }
+
+  @Test
+  void singleVisitorScan() {
+    AstNode tree = new ParserAdapter<LexerlessGrammar>(StandardCharsets.UTF_8, RustGrammar.create().build()).parse(CONTENT);
+    RecordingVisitor visitor = new RecordingVisitor(RustGrammar.STATEMENT);
+    visitor.scanFile(new RustVisitorContext(file(), tree));
+    assertThat(visitor.visited).isEqualTo(tree.getDescendants(RustGrammar.STATEMENT));
+  }
+
+  private static RustFile file() {
+    return new RustFile() {
+      @Override
+      public String name() {
+        return "main.rs";
+      }
+
+      @Override
+      public String content() {
+        return CONTENT;
+      }
+
+      @Override
+      public URI uri() {
+        return null;
+      }
+    };
+  }
+
+  private static class RecordingVisitor extends RustVisitor {
+    private final Set<AstNodeType> kinds;
+    private final List<String> events = new ArrayList<>();
+    private final List<AstNode> visited = new ArrayList<>();
+    private final List<RustVisitorContext> contexts = new ArrayList<>();
+
+    RecordingVisitor(AstNodeType... kinds) {
+      this.kinds = Set.of(kinds);
+    }
+
+    @Override
+    public Set<AstNodeType> subscribedKinds() {
+      return kinds;
+    }
+
+    @Override
+    public void visitFile(AstNode node) {
+      events.add("visitFile");
+      contexts.add(getContext());
+    }
+
+    @Override
+    public void leaveFile(AstNode node) {
+      events.add("leaveFile");
+    }
+
+    @Override
+    public void visitNode(AstNode node) {
+      visited.add(node);
+      events.add("visit " + node.getType() + " " + node.getTokenLine());
+    }
+
+    @Override
+    public void leaveNode(AstNode node) {
+      events.add("leave " + node.getType() + " " + node.getTokenLine());
+    }
+  }
+
+  private static class TokenVisitor extends RustVisitor {
+    private final List<Token> tokens = new ArrayList<>();
+
+    @Override
+    public void visitToken(Token token) {
+      tokens.add(token);
+    }
+  }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust.metrics;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.sonar.rust.RustFile;
+import org.sonar.rust.RustLexer;
+import org.sonar.rust.RustParserConfiguration;
+import org.sonar.rust.RustVisitorContext;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommentsVisitorTest {
+
+  @Test
+  void headerCommentsAreIgnored() {
+    assertThat(commentLines("// header\nfn main() {}\n")).isEmpty();
+  }
+
+  @Test
+  void lineComments() {
+    assertThat(commentLines("fn main() {\n  // one\n  //\n  // ---\n  // 123\n}\n")).containsExactly(2, 5);
+  }
+
+  @Test
+  void blockComments() {
+    assertThat(commentLines("fn main() {\n  /* one\n\n   * ---\n   * two */\n}\n")).containsExactly(2, 5);
+    assertThat(commentLines("fn main() {\n  /**/ /*a*/\n}\n")).containsExactly(2);
+  }
+
+  @Test
+  void lineBreaks() {
+    assertThat(commentLines("fn main() {\r\n  /* one\r\n two\r three\n\r four */\r\n}")).containsExactly(2, 3, 4, 6);
+  }
+
+  @Test
+  void delimitersAreNotContents() {
+    // the two last characters of a line comment are not considered
+    assertThat(commentLines("fn main() {\n  // ab\n  // abc\n}\n")).containsExactly(3);
+  }
+
+  private static int[] commentLines(String content) {
+    RustFile file = new RustFile() {
+      @Override
+      public String name() {
+        return "main.rs";
+      }
+
+      @Override
+      public String content() {
+        return content;
+      }
+
+      @Override
+      public URI uri() {
+        return null;
+      }
+    };
+    var context = new RustVisitorContext(file, null, RustLexer.create(RustParserConfiguration.builder()
+      .setCharset(StandardCharsets.UTF_8)
+      .build()).tokenize(content));
+    CommentsVisitor visitor = new CommentsVisitor();
+    visitor.scanFile(context);
+    return visitor.commentLines().toArray();
+  }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust.metrics;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.sonar.rust.RustFile;
+import org.sonar.rust.RustParser;
+import org.sonar.rust.RustParserConfiguration;
+import org.sonar.rust.RustVisitorContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ComplexityVisitorTest {
+
+  @Test
+  void functionsWithoutBranches() {
+    ComplexityVisitor visitor = scan("fn main() {\n  let x = 1;\n}\nfn other() {}\n");
+    assertThat(describe(visitor)).containsExactly("main@1 1/0", "other@4 1/0");
+    assertThat(visitor.complexity()).isEqualTo(2);
+    assertThat(visitor.cognitiveComplexity()).isZero();
+  }
+
+  @Test
+  void conditions() {
+    ComplexityVisitor visitor = scan("fn f() {\n"
+      + "  if a {\n"
+      + "    if let Some(x) = y { }\n"
+      + "  } else if b {\n"
+      + "  } else {\n"
+      + "  }\n"
+      + "}\n");
+    // if +1, nested if let +2, else if +1, else +1
+    assertThat(describe(visitor)).containsExactly("f@1 4/5");
+  }
+
+  @Test
+  void loopsAndMatches() {
+    ComplexityVisitor visitor = scan("fn f() {\n"
+      + "  for i in 0..10 {\n"
+      + "    while a {\n"
+      + "      match i { 1 => {}, 2 => {}, _ => {} }\n"
+      + "    }\n"
+      + "  }\n"
+      + "  'outer: loop { break 'outer; }\n"
+      + "}\n");
+    // for +1, while +2, match +3, loop +1, labelled break +1
+    assertThat(describe(visitor)).containsExactly("f@1 6/8");
+  }
+
+  @Test
+  void booleanOperators() {
+    // each operator is a path, each sequence of like operators costs 1
+    assertThat(describe(scan("fn f() { if a && b && c { } }"))).containsExactly("f@1 4/2");
+    assertThat(describe(scan("fn f() { let x = a && b || c; }"))).containsExactly("f@1 3/2");
+    assertThat(describe(scan("fn f() { let x = a && (b && c); }"))).containsExactly("f@1 3/2");
+    assertThat(describe(scan("fn f() { let x = a == b && c == d; }"))).containsExactly("f@1 2/1");
+  }
+
+  @Test
+  void errorPropagationAndClosures() {
+    ComplexityVisitor visitor = scan("fn f() -> Result<(), E> {\n"
+      + "  g()?;\n"
+      + "  let h = |x| if x { 1 } else { 2 };\n"
+      + "  Ok(())\n"
+      + "}\n");
+    // the closure nests its if
+    assertThat(describe(visitor)).containsExactly("f@1 4/3");
+  }
+
+  @Test
+  void nestedFunctionsAreMeasuredSeparately() {
+    ComplexityVisitor visitor = scan("fn outer() {\n"
+      + "  fn inner() { if a { } }\n"
+      + "  if b { }\n"
+      + "}\n"
+      + "const C: bool = a && b;\n");
+    assertThat(describe(visitor)).containsExactly("inner@2 2/1", "outer@1 2/1");
+    // the constant is counted in the file totals
+    assertThat(visitor.complexity()).isEqualTo(5);
+    assertThat(visitor.cognitiveComplexity()).isEqualTo(3);
+  }
+
+  @Test
+  void resultsAreResetForEachFile() {
+    ComplexityVisitor visitor = scan("fn f() { if a { } }");
+    visitor.scanFile(context("fn g() {}"));
+    assertThat(describe(visitor)).containsExactly("g@1 1/0");
+    assertThat(visitor.complexity()).isEqualTo(1);
+  }
+
+  private static List<String> describe(ComplexityVisitor visitor) {
+    return visitor.functions().stream()
+      .map(function -> function.name() + "@" + function.line() + " " + function.cyclomatic() + "/" + function.cognitive())
+      .collect(Collectors.toList());
+  }
+
+  private static ComplexityVisitor scan(String content) {
+    ComplexityVisitor visitor = new ComplexityVisitor();
+    visitor.scanFile(context(content));
+    return visitor;
+  }
+
+  private static RustVisitorContext context(String content) {
+    RustFile file = new RustFile() {
+      @Override
+      public String name() {
+        return "main.rs";
+      }
+
+      @Override
+      public String content() {
+        return content;
+      }
+
+      @Override
+      public URI uri() {
+        return null;
+      }
+    };
+    return new RustVisitorContext(file, RustParser.create(RustParserConfiguration.builder()
+      .setCharset(StandardCharsets.UTF_8)
+      .build()).parse(content));
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.rust.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LineSetTest {
+
+  @Test
+  void empty() {
+    LineSet lines = new LineSet();
+
+    assertThat(lines.isEmpty()).isTrue();
+    assertThat(lines.size()).isZero();
+    assertThat(lines.nextLine(0)).isEqualTo(-1);
+    assertThat(lines.toArray()).isEmpty();
+  }
+
+  @Test
+  void lines() {
+    LineSet lines = new LineSet();
+    lines.add(3);
+    lines.add(1);
+    lines.add(3);
+    lines.addRange(10, 12);
+    lines.addRange(5, 5);
+    lines.add(100_000);
+
+    assertThat(lines.isEmpty()).isFalse();
+    assertThat(lines.size()).isEqualTo(7);
+    assertThat(lines.contains(3)).isTrue();
+    assertThat(lines.contains(4)).isFalse();
+    assertThat(lines.contains(-1)).isFalse();
+    assertThat(lines.nextLine(4)).isEqualTo(5);
+    assertThat(lines.nextLine(13)).isEqualTo(100_000);
+    assertThat(lines.toArray()).containsExactly(1, 3, 5, 10, 11, 12, 100_000);
+
+    List<Integer> visited = new ArrayList<>();
+    lines.forEach(visited::add);
+    assertThat(visited).containsExactly(1, 3, 5, 10, 11, 12, 100_000);
+  }
+
+  @Test
+  void equality() {
+    LineSet lines = new LineSet();
+    lines.addRange(1, 2);
+    LineSet same = new LineSet();
+    same.add(2);
+    same.add(1);
+
+    assertThat(lines).isEqualTo(same).hasSameHashCodeAs(same);
+    same.add(3);
+    assertThat(lines).isNotEqualTo(same);
+  }
+
+}
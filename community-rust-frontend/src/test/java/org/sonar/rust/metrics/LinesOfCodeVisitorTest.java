@@ -21,12 +21,16 @@
 package org.sonar.rust.metrics;
 
 import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
-import java.util.Set;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.sonar.rust.RustFile;
 import org.sonar.rust.RustGrammar;
+import org.sonar.rust.RustLexer;
+import org.sonar.rust.RustParserConfiguration;
+import org.sonar.rust.RustSourceTokenizer;
 import org.sonar.rust.RustVisitorContext;
 import org.sonar.sslr.parser.LexerlessGrammar;
 import org.sonar.sslr.parser.ParserAdapter;
@@ -41,7 +45,7 @@ class LinesOfCodeVisitorTest {
 
     ParserAdapter<LexerlessGrammar> parser = new ParserAdapter<>(StandardCharsets.UTF_8, RustGrammar.create().build());
     AstNode rootNode = parser.parse("");
-    LinesOfCodeVisitor lcv = new LinesOfCodeVisitor(parser);
+    LinesOfCodeVisitor lcv = new LinesOfCodeVisitor(RustLexer.create(RustParserConfiguration.builder().setCharset(StandardCharsets.UTF_8).build()));
     RustFile source = new RustFile() {
       @Override
       public String name() {
@@ -61,10 +65,87 @@ class LinesOfCodeVisitorTest {
     RustVisitorContext context = new RustVisitorContext(source, rootNode);
     lcv.setContext(context);
     lcv.visitFile(rootNode);
-    Set<Integer> lines = lcv.linesOfCode();
+    LineSet lines = lcv.linesOfCode();
 
-    assertThat(lines).isEmpty();
+    assertThat(lines.isEmpty()).isTrue();
 
   }
 
+  @Test
+  void sharedTokens() {
+    String content = "// header\n" +
+      "fn main() {\n" +
+      "  let s = \"a\n" +
+      "b\";\n" +
+      "  let t = s\n" +
+      "  ;\n" +
+      "  /* the answer */ 42\n" +
+      "}\n";
+    RustSourceTokenizer lexer = RustLexer.create(RustParserConfiguration.builder().setCharset(StandardCharsets.UTF_8).build());
+    ParserAdapter<LexerlessGrammar> parser = new ParserAdapter<>(StandardCharsets.UTF_8, RustGrammar.create().build());
+    List<Token> tokens = lexer.tokenize(content);
+    RustFile source = new RustFile() {
+      @Override
+      public String name() {
+        return "main.rs";
+      }
+
+      @Override
+      public String content() {
+        return content;
+      }
+
+      @Override
+      public URI uri() {
+        return null;
+      }
+    };
+
+    // no lexer: the visitors have to rely on the tokens of the context
+    LinesOfCodeVisitor lcv = new LinesOfCodeVisitor(null);
+    CommentsVisitor cv = new CommentsVisitor();
+    RustVisitorContext sharedContext = new RustVisitorContext(source, parser.parse(content), tokens);
+    lcv.scanFile(sharedContext);
+    cv.scanFile(sharedContext);
+
+    assertThat(lcv.linesOfCode().toArray()).containsExactly(2, 3, 4, 5, 7, 8);
+    assertThat(cv.commentLines().toArray()).containsExactly(7);
+
+    LinesOfCodeVisitor lexingLcv = new LinesOfCodeVisitor(lexer);
+    CommentsVisitor treeCv = new CommentsVisitor();
+    RustVisitorContext context = new RustVisitorContext(source, parser.parse(content));
+    lexingLcv.scanFile(context);
+    treeCv.scanFile(context);
+
+    assertThat(lexingLcv.linesOfCode()).isEqualTo(lcv.linesOfCode());
+    assertThat(treeCv.commentLines()).isEqualTo(cv.commentLines());
+  }
+
+  @Test
+  void lineTerminatorsOfTokens() {
+    String content = "fn main() {\r\n  let s = \"a\r\nb\rc\n\n\";\r\n\r\n  s\r}";
+    RustSourceTokenizer lexer = RustLexer.create(RustParserConfiguration.builder().setCharset(StandardCharsets.UTF_8).build());
+    RustFile source = new RustFile() {
+      @Override
+      public String name() {
+        return "main.rs";
+      }
+
+      @Override
+      public String content() {
+        return content;
+      }
+
+      @Override
+      public URI uri() {
+        return null;
+      }
+    };
+
+    LinesOfCodeVisitor lcv = new LinesOfCodeVisitor(null);
+    lcv.scanFile(new RustVisitorContext(source, null, lexer.tokenize(content)));
+
+    assertThat(lcv.linesOfCode().toArray()).containsExactly(1, 2, 3, 4, 5, 6, 8, 9);
+  }
+
 }
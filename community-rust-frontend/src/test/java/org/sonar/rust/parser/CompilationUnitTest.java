@@ -20,10 +20,12 @@
  */
 package org.sonar.rust.parser;
 
+import java.time.Duration;
 import org.junit.jupiter.api.Test;
 import org.sonar.rust.RustGrammar;
 
 
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.sonar.sslr.tests.Assertions.assertThat;
 
 class CompilationUnitTest {
@@ -71,4 +73,40 @@ class CompilationUnitTest {
         "\n" +
         "}\n");
   }
+
+  @Test
+  void testDeeplyNestedConstructs() {
+    // each of these used to double the parsing time at every nesting level
+    assertTimeoutPreemptively(Duration.ofSeconds(30), () -> assertThat(RustGrammar.create().build().rule(RustGrammar.COMPILATION_UNIT))
+      .matches(function("let x = " + nested("[", "1", "]") + ";"))
+      .matches(function("let x = " + nested("f(1, ", "1", ")") + ";"))
+      .matches(function("let x = 1" + " + 1".repeat(40) + ";"))
+      .matches(function("let x: " + nested("[", "u8", "]") + " = 1;"))
+      .matches(function("let " + nested("[", "a", "]") + " = 1;"))
+      .matches(function(nested("{", "x", "}")))
+      .matches(function(nested("unsafe {", "x", "}")))
+      .matches(function(nested("loop {", "x", "}")))
+      .matches(function(nested("async move {", "x", "}")))
+      .matches(function(nested("while a { ", "x", "}")))
+      .matches(function("let x = " + nested("|a| ", "a", "") + ";")));
+  }
+
+  @Test
+  void testLongMethodChains() {
+    assertTimeoutPreemptively(Duration.ofSeconds(30), () -> assertThat(RustGrammar.create().build().rule(RustGrammar.COMPILATION_UNIT))
+      .matches(function("let x = a" + ".b(1, c)".repeat(200) + ";"))
+      .matches(function("let x = a" + ".b(1)?.c[2].d".repeat(100) + ";"))
+      .matches(function("a" + ".b()".repeat(200) + ".await?;"))
+      .matches(function("let x = " + nested("v.map(|a| { ", "a + 1", " })") + ";"))
+      .matches(function(nested("if c { match d { _ => { ", "x", " } } }")))
+      .notMatches(function("let x = a" + ".b()".repeat(200) + ".(c);")));
+  }
+
+  private static String function(String body) {
+    return "fn f() { " + body + " }";
+  }
+
+  private static String nested(String open, String inner, String close) {
+    return open.repeat(40) + inner + close.repeat(40);
+  }
 }
@@ -47,6 +47,16 @@ public class CommunityRustPlugin implements Plugin {
   public static final String IGNORE_DUPLICATION_FOR_TESTS = "community.rust.cpd.ignoretests";
   public static final String TEST_AND_COVERAGE = "Test and Coverage";
   public static final String DEFAULT_UNIT_TEST_ATTRIBUTES = "test,tokio::test";
+  public static final String ANALYSIS_THREADS = "community.rust.analysis.threads";
+  public static final String DEFAULT_ANALYSIS_THREADS = "1";
+  public static final String ANALYSIS_CACHE_PATH = "community.rust.analysis.cache.path";
+  public static final String ANALYSIS_TIMEOUT = "community.rust.analysis.timeout";
+  public static final String DEFAULT_ANALYSIS_TIMEOUT = "60";
+  public static final String ANALYSIS_MAX_FILE_SIZE = "community.rust.analysis.maxFileSize";
+  public static final String DEFAULT_ANALYSIS_MAX_FILE_SIZE = "0";
+  public static final String ANALYSIS_SPLIT_FILE_SIZE = "community.rust.analysis.splitFileSize";
+  public static final String DEFAULT_ANALYSIS_SPLIT_FILE_SIZE = "0";
+  public static final String ANALYSIS = "Analysis";
   private static final String EXTERNAL_ANALYZERS_CATEGORY = "External Analyzers";
   private static final String RUST_SUBCATEGORY = "Rust";
 
@@ -124,5 +134,55 @@ public class CommunityRustPlugin implements Plugin {
         .build(),
       XUnitSensor.class);
 
+    context.addExtensions(
+      PropertyDefinition.builder(ANALYSIS_THREADS)
+        .defaultValue(DEFAULT_ANALYSIS_THREADS)
+        .name("Analysis threads")
+        .description("Number of Rust files analysed in parallel. 0 uses one thread per available processor.")
+        .onQualifiers(Qualifiers.PROJECT)
+        .subCategory(ANALYSIS)
+        .category("Rust")
+        .type(PropertyType.INTEGER)
+        .build(),
+      PropertyDefinition.builder(ANALYSIS_CACHE_PATH)
+        .name("Analysis cache directory")
+        .description("Directory where the results of the analysis of each Rust file are kept, so that unchanged files are not analysed again. "
+          + "Only used when the SonarQube analysis cache is not available. The entries of the files which changed are removed "
+          + "at the end of each analysis, so the directory must not be shared by several projects.")
+        .onQualifiers(Qualifiers.PROJECT)
+        .subCategory(ANALYSIS)
+        .category("Rust")
+        .build(),
+      PropertyDefinition.builder(ANALYSIS_TIMEOUT)
+        .defaultValue(DEFAULT_ANALYSIS_TIMEOUT)
+        .name("Parsing timeout")
+        .description("Maximum time in seconds spent parsing a Rust file. Files taking longer only get lines of code, comments, "
+          + "highlighting and duplications computed. 0 disables the timeout.")
+        .onQualifiers(Qualifiers.PROJECT)
+        .subCategory(ANALYSIS)
+        .category("Rust")
+        .type(PropertyType.INTEGER)
+        .build(),
+      PropertyDefinition.builder(ANALYSIS_MAX_FILE_SIZE)
+        .defaultValue(DEFAULT_ANALYSIS_MAX_FILE_SIZE)
+        .name("Maximum parsed file size")
+        .description("Size in KB above which a Rust file is not parsed, and only gets lines of code, comments, "
+          + "highlighting and duplications computed. 0 parses files of any size.")
+        .onQualifiers(Qualifiers.PROJECT)
+        .subCategory(ANALYSIS)
+        .category("Rust")
+        .type(PropertyType.INTEGER)
+        .build(),
+      PropertyDefinition.builder(ANALYSIS_SPLIT_FILE_SIZE)
+        .defaultValue(DEFAULT_ANALYSIS_SPLIT_FILE_SIZE)
+        .name("Parallel parsing file size")
+        .description("Size in KB above which the top-level items of a Rust file are parsed in parallel. "
+          + "0 parses each file on a single thread.")
+        .onQualifiers(Qualifiers.PROJECT)
+        .subCategory(ANALYSIS)
+        .category("Rust")
+        .type(PropertyType.INTEGER)
+        .build());
+
   }
 }
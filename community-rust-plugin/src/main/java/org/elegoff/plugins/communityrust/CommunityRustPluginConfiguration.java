@@ -21,6 +21,8 @@
 package org.elegoff.plugins.communityrust;
 
 import java.nio.charset.Charset;
+import java.time.Duration;
+import org.sonar.api.config.Configuration;
 import org.sonar.rust.RustParserConfiguration;
 
 public class CommunityRustPluginConfiguration {
@@ -30,4 +32,13 @@ public class CommunityRustPluginConfiguration {
       .setCharset(charset)
       .build();
   }
+
+  RustParserConfiguration getParserConfiguration(Charset charset, Configuration config) {
+    long timeout = config.getLong(CommunityRustPlugin.ANALYSIS_TIMEOUT)
+      .orElse(Long.parseLong(CommunityRustPlugin.DEFAULT_ANALYSIS_TIMEOUT));
+    return RustParserConfiguration.builder()
+      .setCharset(charset)
+      .setParseTimeout(Duration.ofSeconds(Math.max(timeout, 0)))
+      .build();
+  }
 }
@@ -0,0 +1,300 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.plugins.communityrust;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import org.elegoff.rust.checks.CheckList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+
+/**
+ * Keeps the results of the analysis of each file so that unchanged files are not parsed again.
+ * Entries are keyed by a hash of the file content and of everything else the results depend on: plugin version,
+ * active rules and their parameters, and the settings read by the sensor.
+ * The SonarQube analysis cache is used when it is enabled, otherwise the local directory set by
+ * {@link CommunityRustPlugin#ANALYSIS_CACHE_PATH}, if any.
+ * Entries may be read from any thread but must be written from the sensor thread. Once all the files are analysed,
+ * the entries which were not written by the analysis are removed.
+ */
+class RustAnalysisCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RustAnalysisCache.class);
+
+  // to be increased whenever the format of the entries changes
+  private static final int FORMAT_VERSION = 3;
+  private static final String SONAR_CACHE_KEY_PREFIX = "communityrust:analysis:";
+
+  private final Storage storage;
+  private final byte[] fingerprint;
+  private final Set<String> writtenKeys = new HashSet<>();
+
+  private RustAnalysisCache(@CheckForNull Storage storage, byte[] fingerprint) {
+    this.storage = storage;
+    this.fingerprint = fingerprint;
+  }
+
+  static RustAnalysisCache create(SensorContext context) {
+    Storage storage = null;
+    if (context.isCacheEnabled()) {
+      storage = new SonarQubeStorage(context.previousCache(), context.nextCache());
+    } else {
+      var directory = context.config().get(CommunityRustPlugin.ANALYSIS_CACHE_PATH).filter(path -> !path.isBlank());
+      if (directory.isPresent()) {
+        storage = new DirectoryStorage(Paths.get(directory.get()));
+      }
+    }
+    return new RustAnalysisCache(storage, fingerprint(context));
+  }
+
+  private static byte[] fingerprint(SensorContext context) {
+    var fingerprint = new StringBuilder()
+      .append(FORMAT_VERSION).append('\n')
+      .append(pluginVersion()).append('\n')
+      .append(context.fileSystem().encoding()).append('\n');
+
+    context.activeRules().findByRepository(CheckList.REPOSITORY_KEY).stream()
+      .sorted(Comparator.comparing(rule -> rule.ruleKey().toString()))
+      .forEach(rule -> appendRule(fingerprint, rule));
+
+    for (String property : new String[] {CommunityRustPlugin.UNIT_TEST_ATTRIBUTES, CommunityRustPlugin.IGNORE_DUPLICATION_FOR_TESTS,
+      CommunityRustPlugin.ANALYSIS_MAX_FILE_SIZE}) {
+      fingerprint.append(property).append('=').append(String.join(",", context.config().getStringArray(property))).append('\n');
+    }
+    return fingerprint.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static void appendRule(StringBuilder fingerprint, ActiveRule rule) {
+    fingerprint.append(rule.ruleKey());
+    Map<String, String> params = new TreeMap<>(rule.params());
+    params.forEach((key, value) -> fingerprint.append(' ').append(key).append('=').append(value));
+    fingerprint.append('\n');
+  }
+
+  private static String pluginVersion() {
+    var properties = new Properties();
+    try (InputStream in = RustAnalysisCache.class.getResourceAsStream("communityrust.properties")) {
+      if (in != null) {
+        properties.load(in);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return properties.getProperty("version", "");
+  }
+
+  boolean isEnabled() {
+    return storage != null;
+  }
+
+  String key(String content) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    digest.update(fingerprint);
+    digest.update(content.getBytes(StandardCharsets.UTF_8));
+
+    var key = new StringBuilder();
+    for (byte b : digest.digest()) {
+      key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return key.toString();
+  }
+
+  /**
+   * Analysis previously stored for the given key, or {@code null} when there is none or it cannot be read.
+   */
+  @CheckForNull
+  RustFileAnalysis read(InputFile inputFile, String key) {
+    if (storage == null) {
+      return null;
+    }
+    try (InputStream in = storage.read(key)) {
+      if (in == null) {
+        return null;
+      }
+      return RustFileAnalysis.readFrom(inputFile, key, new DataInputStream(in));
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Unable to read cached analysis of {}: {}", inputFile, e.getMessage());
+      return null;
+    }
+  }
+
+  void write(RustFileAnalysis analysis) {
+    String key = analysis.cacheKey();
+    // files with the same content share the same entry
+    if (storage == null || key == null || !writtenKeys.add(key)) {
+      return;
+    }
+    try {
+      if (analysis.isFromCache()) {
+        storage.copyFromPrevious(key);
+      } else {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+          analysis.writeTo(out);
+        }
+        storage.write(key, bytes.toByteArray());
+      }
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Unable to cache analysis of {}: {}", analysis.inputFile(), e.getMessage());
+    }
+  }
+
+  /**
+   * Removes the entries not written by this analysis, such as the ones of files which changed or of another
+   * configuration, to be called once all the files are analysed.
+   */
+  void removeUnusedEntries() {
+    if (storage == null) {
+      return;
+    }
+    try {
+      storage.retainOnly(writtenKeys);
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Unable to remove unused entries of the analysis cache: {}", e.getMessage());
+    }
+  }
+
+  private interface Storage {
+    @CheckForNull
+    InputStream read(String key) throws IOException;
+
+    void write(String key, byte[] data) throws IOException;
+
+    void copyFromPrevious(String key) throws IOException;
+
+    void retainOnly(Set<String> keys) throws IOException;
+  }
+
+  private static class SonarQubeStorage implements Storage {
+    private final ReadCache previousCache;
+    private final WriteCache nextCache;
+
+    SonarQubeStorage(ReadCache previousCache, WriteCache nextCache) {
+      this.previousCache = previousCache;
+      this.nextCache = nextCache;
+    }
+
+    @Override
+    public InputStream read(String key) {
+      String cacheKey = SONAR_CACHE_KEY_PREFIX + key;
+      return previousCache.contains(cacheKey) ? previousCache.read(cacheKey) : null;
+    }
+
+    @Override
+    public void write(String key, byte[] data) {
+      nextCache.write(SONAR_CACHE_KEY_PREFIX + key, data);
+    }
+
+    @Override
+    public void copyFromPrevious(String key) {
+      nextCache.copyFromPrevious(SONAR_CACHE_KEY_PREFIX + key);
+    }
+
+    @Override
+    public void retainOnly(Set<String> keys) {
+      // the next cache only holds the entries of this analysis
+    }
+  }
+
+  /**
+   * Entries are kept across analyses, each in a file named after its key. The directory is meant to be used by the
+   * analyses of a single project, the entries of the other ones being removed at the end of each analysis.
+   */
+  private static class DirectoryStorage implements Storage {
+    private static final Pattern ENTRY_NAME = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path directory;
+
+    DirectoryStorage(Path directory) {
+      this.directory = directory;
+    }
+
+    @Override
+    public InputStream read(String key) throws IOException {
+      Path entry = directory.resolve(key);
+      return Files.isRegularFile(entry) ? Files.newInputStream(entry) : null;
+    }
+
+    @Override
+    public void write(String key, byte[] data) throws IOException {
+      Files.createDirectories(directory);
+      // written aside then moved, so that a concurrent or interrupted analysis never reads a partial entry
+      Path temporary = Files.createTempFile(directory, key, ".tmp");
+      try {
+        Files.write(temporary, data);
+        Files.move(temporary, directory.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temporary);
+      }
+    }
+
+    @Override
+    public void copyFromPrevious(String key) {
+      // the entry already is in the directory
+    }
+
+    @Override
+    public void retainOnly(Set<String> keys) throws IOException {
+      if (!Files.isDirectory(directory)) {
+        return;
+      }
+      try (Stream<Path> entries = Files.list(directory)) {
+        for (Path entry : (Iterable<Path>) entries::iterator) {
+          String name = entry.getFileName().toString();
+          if (ENTRY_NAME.matcher(name).matches() && !keys.contains(name)) {
+            Files.deleteIfExists(entry);
+          }
+        }
+      }
+    }
+  }
+
+}
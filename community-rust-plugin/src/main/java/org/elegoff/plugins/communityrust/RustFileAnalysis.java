@@ -0,0 +1,421 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.plugins.communityrust;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.api.batch.sensor.issue.NewIssueLocation;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.rust.metrics.LineSet;
+
+/**
+ * Everything computed for one Rust file (measures, highlighting, CPD tokens and issues).
+ * Analysis may run on any thread; {@link #save} pushes the results to the {@link SensorContext}
+ * and must be called from the sensor thread.
+ */
+public class RustFileAnalysis {
+
+  private final InputFile inputFile;
+
+  private boolean hasMetrics;
+  // false when only the lexical metrics are known, the file not being parsed
+  private boolean hasSyntaxMetrics;
+  private LineSet linesOfCode = new LineSet();
+  private int commentLines;
+  private int statements;
+  private int functions;
+  private int complexity;
+  private int cognitiveComplexity;
+
+  private boolean hasTokens;
+  private final TextRanges<TypeOfText> highlightings = new TextRanges<>();
+  private final TextRanges<String> cpdTokens = new TextRanges<>();
+
+  private final List<FileIssue> issues = new ArrayList<>();
+
+  private String parseError;
+  private String warning;
+
+  private String cacheKey;
+  private boolean fromCache;
+
+  RustFileAnalysis(InputFile inputFile) {
+    this.inputFile = inputFile;
+  }
+
+  public InputFile inputFile() {
+    return inputFile;
+  }
+
+  void setMetrics(LineSet linesOfCode, int commentLines, int statements, int functions, int complexity, int cognitiveComplexity) {
+    setLexicalMetrics(linesOfCode, commentLines);
+    this.hasSyntaxMetrics = true;
+    this.statements = statements;
+    this.functions = functions;
+    this.complexity = complexity;
+    this.cognitiveComplexity = cognitiveComplexity;
+  }
+
+  void setLexicalMetrics(LineSet linesOfCode, int commentLines) {
+    this.hasMetrics = true;
+    this.linesOfCode = linesOfCode;
+    this.commentLines = commentLines;
+  }
+
+  void startTokens() {
+    hasTokens = true;
+  }
+
+  void highlight(int startLine, int startLineOffset, int endLine, int endLineOffset, TypeOfText typeOfText) {
+    highlightings.add(startLine, startLineOffset, endLine, endLineOffset, typeOfText);
+  }
+
+  void addCpdToken(int startLine, int startLineOffset, int endLine, int endLineOffset, String image) {
+    cpdTokens.add(startLine, startLineOffset, endLine, endLineOffset, image);
+  }
+
+  void addIssue(RuleKey ruleKey, @CheckForNull Integer line, String message) {
+    issues.add(new FileIssue(ruleKey, line, message));
+  }
+
+  void setParseError(String parseError) {
+    this.parseError = parseError;
+  }
+
+  @CheckForNull
+  public String parseError() {
+    return parseError;
+  }
+
+  void setWarning(String warning) {
+    this.warning = warning;
+  }
+
+  /**
+   * Why the file was only partially analysed, to be reported as an analysis warning.
+   */
+  @CheckForNull
+  public String warning() {
+    return warning;
+  }
+
+  public LineSet linesOfCode() {
+    return linesOfCode;
+  }
+
+  public List<FileIssue> issues() {
+    return Collections.unmodifiableList(issues);
+  }
+
+  void setCacheKey(String cacheKey) {
+    this.cacheKey = cacheKey;
+  }
+
+  /**
+   * Key of the entry of the {@link RustAnalysisCache} for this analysis, {@code null} when it must not be cached.
+   */
+  @CheckForNull
+  String cacheKey() {
+    return cacheKey;
+  }
+
+  boolean isFromCache() {
+    return fromCache;
+  }
+
+  void writeTo(DataOutputStream out) throws IOException {
+    writeNullableString(out, parseError);
+    writeNullableString(out, warning);
+
+    out.writeBoolean(hasMetrics);
+    if (hasMetrics) {
+      out.writeInt(linesOfCode.size());
+      for (int line = linesOfCode.nextLine(0); line >= 0; line = linesOfCode.nextLine(line + 1)) {
+        out.writeInt(line);
+      }
+      out.writeInt(commentLines);
+      out.writeBoolean(hasSyntaxMetrics);
+      if (hasSyntaxMetrics) {
+        out.writeInt(statements);
+        out.writeInt(functions);
+        out.writeInt(complexity);
+        out.writeInt(cognitiveComplexity);
+      }
+    }
+
+    out.writeBoolean(hasTokens);
+    if (hasTokens) {
+      out.writeInt(highlightings.size());
+      for (int i = 0; i < highlightings.size(); i++) {
+        highlightings.writeTo(out, i);
+        writeString(out, highlightings.value(i).name());
+      }
+      out.writeInt(cpdTokens.size());
+      for (int i = 0; i < cpdTokens.size(); i++) {
+        cpdTokens.writeTo(out, i);
+        writeString(out, cpdTokens.value(i));
+      }
+    }
+
+    out.writeInt(issues.size());
+    for (FileIssue issue : issues) {
+      writeString(out, issue.ruleKey.toString());
+      out.writeInt(issue.line == null ? 0 : issue.line);
+      writeString(out, issue.message);
+    }
+  }
+
+  static RustFileAnalysis readFrom(InputFile inputFile, String cacheKey, DataInputStream in) throws IOException {
+    var analysis = new RustFileAnalysis(inputFile);
+    analysis.cacheKey = cacheKey;
+    analysis.fromCache = true;
+    analysis.parseError = readNullableString(in);
+    analysis.warning = readNullableString(in);
+
+    if (in.readBoolean()) {
+      int size = in.readInt();
+      var linesOfCode = new LineSet();
+      for (int i = 0; i < size; i++) {
+        linesOfCode.add(in.readInt());
+      }
+      int commentLines = in.readInt();
+      if (in.readBoolean()) {
+        analysis.setMetrics(linesOfCode, commentLines, in.readInt(), in.readInt(), in.readInt(), in.readInt());
+      } else {
+        analysis.setLexicalMetrics(linesOfCode, commentLines);
+      }
+    }
+
+    if (in.readBoolean()) {
+      analysis.startTokens();
+      int highlightings = in.readInt();
+      for (int i = 0; i < highlightings; i++) {
+        analysis.highlight(in.readInt(), in.readInt(), in.readInt(), in.readInt(), TypeOfText.valueOf(readString(in)));
+      }
+      int cpdTokens = in.readInt();
+      for (int i = 0; i < cpdTokens; i++) {
+        analysis.addCpdToken(in.readInt(), in.readInt(), in.readInt(), in.readInt(), readString(in));
+      }
+    }
+
+    int issues = in.readInt();
+    for (int i = 0; i < issues; i++) {
+      RuleKey ruleKey = RuleKey.parse(readString(in));
+      int line = in.readInt();
+      analysis.addIssue(ruleKey, line == 0 ? null : line, readString(in));
+    }
+    return analysis;
+  }
+
+  // DataOutput#writeUTF is limited to 64KB, which a string literal may exceed
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeNullableString(DataOutputStream out, @CheckForNull String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      writeString(out, value);
+    }
+  }
+
+  @CheckForNull
+  private static String readNullableString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? readString(in) : null;
+  }
+
+  void save(SensorContext context, FileLinesContextFactory fileLinesContextFactory) {
+    if (parseError != null) {
+      context.newAnalysisError()
+        .onFile(inputFile)
+        .message(parseError)
+        // we can't easily report the precise line when %INCLUDE is used
+        // and reporting an incorrect line can cause a failure (SONARPLI-198)
+        .save();
+    }
+    if (hasMetrics) {
+      saveMetrics(context, fileLinesContextFactory);
+    }
+    if (hasTokens) {
+      saveTokens(context);
+    }
+    saveIssues(context);
+  }
+
+  private void saveMetrics(SensorContext context, FileLinesContextFactory fileLinesContextFactory) {
+    context.<Integer>newMeasure()
+      .on(inputFile)
+      .forMetric(CoreMetrics.NCLOC)
+      .withValue(linesOfCode.size())
+      .save();
+    context.<Integer>newMeasure()
+      .on(inputFile)
+      .forMetric(CoreMetrics.COMMENT_LINES)
+      .withValue(commentLines)
+      .save();
+    if (hasSyntaxMetrics) {
+      context.<Integer>newMeasure()
+        .on(inputFile)
+        .forMetric(CoreMetrics.STATEMENTS)
+        .withValue(statements)
+        .save();
+      context.<Integer>newMeasure()
+        .on(inputFile)
+        .forMetric(CoreMetrics.COMPLEXITY)
+        .withValue(complexity)
+        .save();
+      context.<Integer>newMeasure()
+        .on(inputFile)
+        .forMetric(CoreMetrics.COGNITIVE_COMPLEXITY)
+        .withValue(cognitiveComplexity)
+        .save();
+      context.<Integer>newMeasure()
+        .on(inputFile)
+        .forMetric(CoreMetrics.FUNCTIONS)
+        .withValue(functions)
+        .save();
+    }
+
+    var fileLinesContext = fileLinesContextFactory.createFor(inputFile);
+    linesOfCode.forEach(line -> fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, 1));
+    fileLinesContext.save();
+  }
+
+  private void saveTokens(SensorContext context) {
+    var highlighting = context.newHighlighting();
+    highlighting.onFile(inputFile);
+    for (int i = 0; i < highlightings.size(); i++) {
+      int at = i * 4;
+      highlighting.highlight(highlightings.bounds[at], highlightings.bounds[at + 1], highlightings.bounds[at + 2], highlightings.bounds[at + 3],
+        highlightings.value(i));
+    }
+    highlighting.save();
+
+    var cpd = context.newCpdTokens();
+    cpd.onFile(inputFile);
+    for (int i = 0; i < cpdTokens.size(); i++) {
+      int at = i * 4;
+      cpd.addToken(cpdTokens.bounds[at], cpdTokens.bounds[at + 1], cpdTokens.bounds[at + 2], cpdTokens.bounds[at + 3], cpdTokens.value(i));
+    }
+    cpd.save();
+  }
+
+  private void saveIssues(SensorContext context) {
+    for (FileIssue rustIssue : issues) {
+      var issue = context.newIssue();
+      NewIssueLocation location = issue.newLocation()
+        .on(inputFile)
+        .message(rustIssue.message);
+      if (rustIssue.line != null) {
+        location.at(inputFile.selectLine(rustIssue.line));
+      }
+      issue.at(location)
+        .forRule(rustIssue.ruleKey)
+        .save();
+    }
+  }
+
+  /**
+   * Text ranges with a value each, their bounds packed in a single array rather than one object per range.
+   */
+  static final class TextRanges<T> {
+    // start line, start line offset, end line and end line offset of each range
+    private int[] bounds = new int[64];
+    private Object[] values = new Object[16];
+    private int size;
+
+    void add(int startLine, int startLineOffset, int endLine, int endLineOffset, T value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+        bounds = Arrays.copyOf(bounds, size * 8);
+      }
+      int at = size * 4;
+      bounds[at] = startLine;
+      bounds[at + 1] = startLineOffset;
+      bounds[at + 2] = endLine;
+      bounds[at + 3] = endLineOffset;
+      values[size] = value;
+      size++;
+    }
+
+    int size() {
+      return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    T value(int index) {
+      return (T) values[index];
+    }
+
+    void writeTo(DataOutputStream out, int index) throws IOException {
+      int at = index * 4;
+      for (int i = at; i < at + 4; i++) {
+        out.writeInt(bounds[i]);
+      }
+    }
+  }
+
+  public static final class FileIssue {
+    private final RuleKey ruleKey;
+    private final Integer line;
+    private final String message;
+
+    FileIssue(RuleKey ruleKey, @CheckForNull Integer line, String message) {
+      this.ruleKey = ruleKey;
+      this.line = line;
+      this.message = message;
+    }
+
+    public RuleKey ruleKey() {
+      return ruleKey;
+    }
+
+    @CheckForNull
+    public Integer line() {
+      return line;
+    }
+
+    public String message() {
+      return message;
+    }
+  }
+
+}
@@ -0,0 +1,241 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.plugins.communityrust;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.Token;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.elegoff.rust.checks.Issue;
+import org.elegoff.rust.checks.RustCheck;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.Checks;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.config.Configuration;
+import org.sonar.rust.RustFile;
+import org.sonar.rust.RustFileContent;
+import org.sonar.rust.RustLexer;
+import org.sonar.rust.RustParallelParser;
+import org.sonar.rust.RustParseTimeoutException;
+import org.sonar.rust.RustParserConfiguration;
+import org.sonar.rust.RustParserPool;
+import org.sonar.rust.RustRecoveringParser;
+import org.sonar.rust.RustTokenizer;
+import org.sonar.rust.RustVisitor;
+import org.sonar.rust.RustVisitorContext;
+import org.sonar.rust.RustVisitorDispatcher;
+import org.sonar.rust.metrics.MetricsVisitor;
+
+/**
+ * Parses and analyses Rust files one at a time. The visitors and the check instances are stateful,
+ * so an instance must be confined to a single thread, while parsers are borrowed from a pool shared by all threads.
+ */
+class RustFileAnalyzer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RustFileAnalyzer.class);
+  private static final String PARTIAL_ANALYSIS = " Only lines of code, comments, highlighting and duplications are computed.";
+
+  private final RustParserPool parser;
+  @Nullable
+  private final RustParallelParser parallelParser;
+  private final RustRecoveringParser recoveringParser;
+  private final RustTokenizer tokenizer = new RustTokenizer();
+  private final MetricsVisitor metricsVisitor;
+  private final RustTokensVisitor tokensVisitor;
+  private final Checks<RustCheck> checks;
+  private final RustAnalysisCache cache;
+  private final RustParserConfiguration parserConfiguration;
+  // in characters, 0 when the size of parsed files is not limited
+  private final long maxFileSize;
+  // in characters, 0 when files are always parsed on a single thread
+  private final long splitFileSize;
+  private final List<RustCheck> activeChecks = new ArrayList<>();
+  // metrics and checks are computed during a single walk of the tree
+  private final RustVisitorDispatcher dispatcher;
+  private final RustVisitorDispatcher checksDispatcher;
+
+  /**
+   * @param parallelParser parser of the files larger than {@link #splitFileSize(Configuration)}, null when they are
+   *                       not split
+   */
+  RustFileAnalyzer(SensorContext context, RustParserConfiguration parserConfiguration, RustParserPool parser, @Nullable RustParallelParser parallelParser,
+    RustRecoveringParser recoveringParser, Checks<RustCheck> checks, RustAnalysisCache cache) {
+    this.parser = parser;
+    this.parallelParser = parallelParser;
+    this.recoveringParser = recoveringParser;
+    this.metricsVisitor = new MetricsVisitor(parserConfiguration);
+    this.tokensVisitor = new RustTokensVisitor(context, RustLexer.create(parserConfiguration));
+    this.checks = checks;
+    this.cache = cache;
+    this.parserConfiguration = parserConfiguration;
+    this.maxFileSize = context.config().getLong(CommunityRustPlugin.ANALYSIS_MAX_FILE_SIZE)
+      .orElse(Long.parseLong(CommunityRustPlugin.DEFAULT_ANALYSIS_MAX_FILE_SIZE)) * 1024;
+    this.splitFileSize = parallelParser == null ? 0 : splitFileSize(context.config());
+    for (RustCheck check : checks.all()) {
+      if (checks.ruleKey(check) != null) {
+        activeChecks.add(check);
+      }
+    }
+    List<RustVisitor> visitors = new ArrayList<>(metricsVisitor.visitors());
+    visitors.addAll(activeChecks);
+    this.dispatcher = new RustVisitorDispatcher(visitors);
+    this.checksDispatcher = new RustVisitorDispatcher(activeChecks);
+  }
+
+  /**
+   * Size in characters above which files are parsed in parallel, 0 when they are never split.
+   */
+  static long splitFileSize(Configuration config) {
+    return config.getLong(CommunityRustPlugin.ANALYSIS_SPLIT_FILE_SIZE)
+      .orElse(Long.parseLong(CommunityRustPlugin.DEFAULT_ANALYSIS_SPLIT_FILE_SIZE)) * 1024;
+  }
+
+  private static void logParseError(InputFile inputFile, RecognitionException e) {
+    LOG.error("Unable to parse file: {}", inputFile);
+    LOG.error(e.getMessage());
+  }
+
+  RustFileAnalysis analyze(InputFile inputFile) {
+    var analysis = new RustFileAnalysis(inputFile);
+    var rustFile = SonarQubeRustFile.create(inputFile);
+    for (RustCheck check : activeChecks) {
+      check.clearIssues();
+    }
+    RustVisitorContext visitorContext;
+    // decoded once, shared by all the visitors of the file and released with the contexts once the file is analysed
+    RustFileContent content = null;
+    LOG.debug("Rust parsing {}", inputFile.filename());
+    try {
+      content = new RustFileContent(inputFile.contents());
+      if (cache.isEnabled()) {
+        String cacheKey = cache.key(content.text());
+        RustFileAnalysis cached = cache.read(inputFile, cacheKey);
+        if (cached != null) {
+          LOG.debug("Rust analysis of {} restored from cache", inputFile.filename());
+          return cached;
+        }
+        analysis.setCacheKey(cacheKey);
+      }
+      if (maxFileSize > 0 && content.text().length() > maxFileSize) {
+        analyzeTokens(analysis, rustFile, content, tokenizer.tokenize(content.chars()), "Rust file " + inputFile + " is larger than "
+          + maxFileSize / 1024 + " KB (" + CommunityRustPlugin.ANALYSIS_MAX_FILE_SIZE + ") and is not parsed." + PARTIAL_ANALYSIS);
+      } else {
+        analyzeTree(analysis, rustFile, content);
+      }
+
+    } catch (RecognitionException e) {
+      visitorContext = new RustVisitorContext(rustFile, content, e);
+      logParseError(inputFile, e);
+      analysis.setParseError(e.getMessage());
+      checksDispatcher.scanFile(visitorContext);
+    } catch (IOException e) {
+      var re = new RecognitionException(0, e.getMessage());
+      visitorContext = new RustVisitorContext(rustFile, re);
+      logParseError(inputFile, re);
+      analysis.setParseError(re.getMessage());
+      checksDispatcher.scanFile(visitorContext);
+    }
+
+    collectIssues(analysis);
+    return analysis;
+  }
+
+  private void analyzeTree(RustFileAnalysis analysis, RustFile rustFile, RustFileContent content) {
+    // lexed once, then shared by the parallel parse, the lines of code, comments, highlighting and CPD computations
+    List<Token> tokens = tokenizer.tokenize(content.chars());
+    AstNode tree;
+    try {
+      tree = parse(analysis, content, tokens);
+    } catch (RustParseTimeoutException e) {
+      // the parsing time depends on the load of the machine, so the partial analysis is not cached
+      analysis.setCacheKey(null);
+      analyzeTokens(analysis, rustFile, content, tokens, "Parsing of Rust file " + analysis.inputFile() + " was aborted after "
+        + parserConfiguration.getParseTimeout().toSeconds() + " s (" + CommunityRustPlugin.ANALYSIS_TIMEOUT + ")." + PARTIAL_ANALYSIS);
+      return;
+    } catch (RecognitionException e) {
+      logParseError(analysis.inputFile(), e);
+      analysis.setParseError(e.getMessage());
+      analyzeTokens(analysis, rustFile, content, tokens, "Rust file " + analysis.inputFile() + " could not be parsed." + PARTIAL_ANALYSIS);
+      return;
+    }
+    var visitorContext = new RustVisitorContext(rustFile, content, tree, tokens);
+
+    dispatcher.scanFile(visitorContext);
+    analysis.setMetrics(
+      metricsVisitor.linesOfCode(),
+      metricsVisitor.commentLines().size(),
+      metricsVisitor.numberOfStatements(),
+      metricsVisitor.numberOfFunctions(),
+      metricsVisitor.complexity(),
+      metricsVisitor.cognitiveComplexity());
+    tokensVisitor.scanFile(visitorContext, analysis);
+  }
+
+  /**
+   * Parses the given content, its top-level items in parallel when it is larger than the split size, skipping the items which do not parse when the whole file does not, in which case the
+   * parse error is reported all the same.
+   *
+   * @throws RecognitionException when the items which do not parse cannot be skipped
+   */
+  private AstNode parse(RustFileAnalysis analysis, RustFileContent content, List<Token> tokens) {
+    // the timeout bounds the parse of the file and its recovery together
+    long startTime = System.nanoTime();
+    try {
+      if (splitFileSize > 0 && content.text().length() > splitFileSize) {
+        return parallelParser.parse(content, tokens, startTime);
+      }
+      return parser.parse(content.chars(), startTime);
+    } catch (RecognitionException e) {
+      AstNode tree = recoveringParser.parse(content, e, startTime);
+      logParseError(analysis.inputFile(), e);
+      analysis.setParseError(e.getMessage());
+      return tree;
+    }
+  }
+
+  /**
+   * Fallback for the files which are not parsed, computing everything that only needs the tokens of the file.
+   */
+  private void analyzeTokens(RustFileAnalysis analysis, RustFile rustFile, RustFileContent content, List<Token> tokens, String warning) {
+    analysis.setWarning(warning);
+    var visitorContext = new RustVisitorContext(rustFile, content, null, tokens);
+
+    metricsVisitor.scanFile(visitorContext);
+    analysis.setLexicalMetrics(metricsVisitor.linesOfCode(), metricsVisitor.commentLines().size());
+    tokensVisitor.scanFile(visitorContext, analysis);
+    checksDispatcher.scanFile(visitorContext);
+  }
+
+  private void collectIssues(RustFileAnalysis analysis) {
+    for (RustCheck check : activeChecks) {
+      var ruleKey = checks.ruleKey(check);
+      for (Issue issue : check.issues()) {
+        analysis.addIssue(ruleKey, issue.line(), issue.message());
+      }
+    }
+  }
+
+}
@@ -20,13 +20,8 @@
  */
 package org.elegoff.plugins.communityrust;
 
-import com.sonar.sslr.api.AstNode;
-import com.sonar.sslr.api.Grammar;
-import com.sonar.sslr.api.RecognitionException;
-import com.sonar.sslr.impl.Parser;
 import org.elegoff.plugins.communityrust.language.RustLanguage;
 import org.elegoff.rust.checks.CheckList;
-import org.elegoff.rust.checks.Issue;
 import org.elegoff.rust.checks.RustCheck;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,43 +31,58 @@ import org.sonar.api.batch.rule.Checks;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
-import org.sonar.api.batch.sensor.issue.NewIssueLocation;
-import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.FileLinesContextFactory;
-import org.sonar.rust.RustLexer;
-import org.sonar.rust.RustParser;
+import org.sonar.api.notifications.AnalysisWarnings;
 import org.sonar.rust.RustParserConfiguration;
-import org.sonar.rust.RustVisitorContext;
-import org.sonar.rust.metrics.MetricsVisitor;
-
-import java.io.IOException;
-import java.util.Collection;
-import java.util.List;
+import org.sonar.rust.RustParallelParser;
+import org.sonar.rust.RustParserPool;
+import org.sonar.rust.RustRecoveringParser;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
 
 public class RustSensor implements Sensor {
 
   private static final Logger LOG = LoggerFactory.getLogger(RustSensor.class);
 
+  // number of analysed files each worker may keep ahead of the thread saving the results
+  private static final int PENDING_FILES_PER_THREAD = 2;
+
   private final FileLinesContextFactory fileLinesContextFactory;
+  private final CheckFactory checkFactory;
   private final Checks<RustCheck> checks;
+  // not available in every runtime (SonarLint), in which case warnings are only logged
+  @Nullable
+  private final AnalysisWarnings analysisWarnings;
 
   public RustSensor(CheckFactory checkFactory, FileLinesContextFactory fileLinesContextFactory) {
-    this.checks = checkFactory
-      .<RustCheck>create(CheckList.REPOSITORY_KEY)
-      .addAnnotatedChecks(CheckList.getRustChecks());
+    this(checkFactory, fileLinesContextFactory, null);
+  }
+
+  public RustSensor(CheckFactory checkFactory, FileLinesContextFactory fileLinesContextFactory, @Nullable AnalysisWarnings analysisWarnings) {
+    this.checkFactory = checkFactory;
+    this.checks = createChecks();
     this.fileLinesContextFactory = fileLinesContextFactory;
+    this.analysisWarnings = analysisWarnings;
   }
 
-  private static void logParseError(SensorContext sensorContext, InputFile inputFile, RecognitionException e) {
-    LOG.error("Unable to parse file: {}", inputFile);
-    LOG.error(e.getMessage());
+  private Checks<RustCheck> createChecks() {
+    return checkFactory
+      .<RustCheck>create(CheckList.REPOSITORY_KEY)
+      .addAnnotatedChecks(CheckList.getRustChecks());
+  }
 
-    sensorContext.newAnalysisError()
-      .onFile(inputFile)
-      .message(e.getMessage())
-      // we can't easily report the precise line when %INCLUDE is used
-      // and reporting an incorrect line can cause a failure (SONARPLI-198)
-      .save();
+  private static int analysisThreads(SensorContext context) {
+    int threads = context.config().getInt(CommunityRustPlugin.ANALYSIS_THREADS)
+      .orElse(Integer.parseInt(CommunityRustPlugin.DEFAULT_ANALYSIS_THREADS));
+    return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
   }
 
   @Override
@@ -90,105 +100,116 @@ public class RustSensor implements Sensor {
       fileSystem.predicates().hasLanguage(RustLanguage.KEY),
       fileSystem.predicates().hasType(InputFile.Type.MAIN));
 
-    RustParserConfiguration parserConfiguration = new CommunityRustPluginConfiguration().getParserConfiguration(fileSystem.encoding());
-    Parser<Grammar> parser = RustParser.create(parserConfiguration);
-    var metricsVisitor = new MetricsVisitor(parserConfiguration);
-    var tokensVisitor = new RustTokensVisitor(context, RustLexer.create(parserConfiguration));
+    RustParserConfiguration parserConfiguration = new CommunityRustPluginConfiguration()
+      .getParserConfiguration(fileSystem.encoding(), context.config());
+    // parsers are only shared by the files of this analysis, the grammar being built while the files are listed
+    // and the checks are instantiated
+    var parser = new RustParserPool(parserConfiguration);
+    parser.warmUp();
+    var recoveringParser = new RustRecoveringParser(parserConfiguration);
+    Iterable<InputFile> inputFiles = fileSystem.inputFiles(mainFilePredicates);
+
+    var cache = RustAnalysisCache.create(context);
+    var statistics = new AnalysisStatistics();
+
+    int threads = analysisThreads(context);
+    // the threads parsing large files are only started when they are split
+    try (var parallelParser = RustFileAnalyzer.splitFileSize(context.config()) > 0
+      ? new RustParallelParser(parser, Runtime.getRuntime().availableProcessors())
+      : null) {
+      if (threads == 1) {
+        executeSequentially(context, inputFiles,
+          new RustFileAnalyzer(context, parserConfiguration, parser, parallelParser, recoveringParser, checks, cache), cache, statistics);
+      } else {
+        LOG.info("Analysing Rust files with {} threads", threads);
+        executeInParallel(context, inputFiles,
+          () -> new RustFileAnalyzer(context, parserConfiguration, parser, parallelParser, recoveringParser, createChecks(), cache),
+          threads, cache, statistics);
+      }
+    }
 
-    Collection<RustCheck> rustChecks = checks.all();
+    if (!context.isCancelled()) {
+      cache.removeUnusedEntries();
+    }
+    if (cache.isEnabled()) {
+      LOG.info("{}/{} Rust files restored from the analysis cache", statistics.restored, statistics.analysed);
+    }
+  }
 
-    for (InputFile file : fileSystem.inputFiles(mainFilePredicates)) {
-      scanFile(context, file, metricsVisitor, tokensVisitor, parser, rustChecks);
-      if (context.isCancelled()) {
+  private void executeSequentially(SensorContext context, Iterable<InputFile> inputFiles, RustFileAnalyzer analyzer,
+    RustAnalysisCache cache, AnalysisStatistics statistics) {
+    for (InputFile file : inputFiles) {
+      if (!save(context, analyzer.analyze(file), cache, statistics)) {
         return;
       }
     }
   }
 
-  private void scanFile(
-    SensorContext sensorContext,
-    InputFile inputFile,
-    MetricsVisitor metricsVisitor,
-    RustTokensVisitor tokensVisitor,
-    Parser<Grammar> parser,
-    Collection<RustCheck> checks) {
-
-    var rustFile = SonarQubeRustFile.create(inputFile);
-    RustVisitorContext visitorContext;
-    String fileName = inputFile.filename();
-    LOG.debug("Rust parsing {}", fileName);
+  /**
+   * Files are analysed by a pool of workers, each one owning its visitors and check instances.
+   * Results are saved from the calling thread, in the same order as the sequential analysis.
+   */
+  private void executeInParallel(SensorContext context, Iterable<InputFile> inputFiles, Supplier<RustFileAnalyzer> analyzer, int threads,
+    RustAnalysisCache cache, AnalysisStatistics statistics) {
+    ThreadLocal<RustFileAnalyzer> analyzers = ThreadLocal.withInitial(analyzer);
+    var threadCount = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+      var thread = new Thread(runnable, "rust-analysis-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    Deque<Future<RustFileAnalysis>> pending = new ArrayDeque<>();
     try {
-      AstNode tree = parser.parse(inputFile.contents());
-      visitorContext = new RustVisitorContext(rustFile, tree);
-
-      saveMetrics(sensorContext, inputFile, visitorContext, metricsVisitor);
-      tokensVisitor.scanFile(inputFile, visitorContext);
-
-    } catch (RecognitionException e) {
-      visitorContext = new RustVisitorContext(rustFile, e);
-      logParseError(sensorContext, inputFile, e);
-    } catch (IOException e) {
-      var re = new RecognitionException(0, e.getMessage());
-      visitorContext = new RustVisitorContext(rustFile, re);
-      logParseError(sensorContext, inputFile, re);
-    }
-
-    for (RustCheck check : checks) {
-      saveIssues(sensorContext, inputFile, check, check.scanFileForIssues(visitorContext));
+      for (InputFile file : inputFiles) {
+        pending.add(executor.submit(() -> analyzers.get().analyze(file)));
+        if (pending.size() >= threads * PENDING_FILES_PER_THREAD && !saveNext(context, pending, cache, statistics)) {
+          return;
+        }
+      }
+      while (!pending.isEmpty()) {
+        if (!saveNext(context, pending, cache, statistics)) {
+          return;
+        }
+      }
+    } finally {
+      executor.shutdownNow();
     }
   }
 
-  private void saveMetrics(SensorContext context, InputFile inputFile, RustVisitorContext visitorContext, MetricsVisitor metricsVisitor) {
-    metricsVisitor.scanFile(visitorContext);
-    context.<Integer>newMeasure()
-      .on(inputFile)
-      .forMetric(CoreMetrics.NCLOC)
-      .withValue(metricsVisitor.linesOfCode().size())
-      .save();
-    context.<Integer>newMeasure()
-      .on(inputFile)
-      .forMetric(CoreMetrics.STATEMENTS)
-      .withValue(metricsVisitor.numberOfStatements())
-      .save();
-    context.<Integer>newMeasure()
-      .on(inputFile)
-      .forMetric(CoreMetrics.COMPLEXITY)
-      .withValue(metricsVisitor.complexity())
-      .save();
-    context.<Integer>newMeasure()
-      .on(inputFile)
-      .forMetric(CoreMetrics.COMMENT_LINES)
-      .withValue(metricsVisitor.commentLines().size())
-      .save();
-    context.<Integer>newMeasure()
-      .on(inputFile)
-      .forMetric(CoreMetrics.FUNCTIONS)
-      .withValue(metricsVisitor.numberOfFunctions())
-      .save();
-
-    var fileLinesContext = fileLinesContextFactory.createFor(inputFile);
-    for (Integer line : metricsVisitor.linesOfCode()) {
-      fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, 1);
+  private boolean saveNext(SensorContext context, Deque<Future<RustFileAnalysis>> pending, RustAnalysisCache cache, AnalysisStatistics statistics) {
+    RustFileAnalysis analysis;
+    try {
+      analysis = pending.remove().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while analysing Rust files", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Unable to analyse Rust file", e.getCause());
     }
-    fileLinesContext.save();
+    return save(context, analysis, cache, statistics);
   }
 
-  private void saveIssues(SensorContext context, InputFile inputFile, RustCheck check, List<Issue> issues) {
-    var ruleKey = checks.ruleKey(check);
-    if (ruleKey == null)
-      return;
-    for (Issue rustIssue : issues) {
-      var issue = context.newIssue();
-      NewIssueLocation location = issue.newLocation()
-        .on(inputFile)
-        .message(rustIssue.message());
-      if (rustIssue.line() != null) {
-        location.at(inputFile.selectLine(rustIssue.line()));
+  private boolean save(SensorContext context, RustFileAnalysis analysis, RustAnalysisCache cache, AnalysisStatistics statistics) {
+    analysis.save(context, fileLinesContextFactory);
+    String warning = analysis.warning();
+    if (warning != null) {
+      LOG.warn(warning);
+      if (analysisWarnings != null) {
+        analysisWarnings.addUnique(warning);
       }
-      issue.at(location)
-        .forRule(ruleKey)
-        .save();
     }
+    cache.write(analysis);
+    statistics.analysed++;
+    if (analysis.isFromCache()) {
+      statistics.restored++;
+    }
+    return !context.isCancelled();
+  }
+
+  private static class AnalysisStatistics {
+    private int analysed;
+    private int restored;
   }
 
 }
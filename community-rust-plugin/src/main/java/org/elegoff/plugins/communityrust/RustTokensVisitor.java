@@ -22,147 +22,175 @@ package org.elegoff.plugins.communityrust;
 
 import com.sonar.sslr.api.GenericTokenType;
 import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
 import com.sonar.sslr.api.Trivia;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import org.apache.commons.lang3.StringUtils;
-import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
-import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.api.config.Configuration;
+import org.sonar.rust.RustFileContent;
+import org.sonar.rust.RustSourceTokenizer;
 import org.sonar.rust.RustVisitorContext;
 import org.sonar.rust.api.RustKeyword;
+import org.sonar.rust.api.RustPunctuator;
 import org.sonar.rust.api.RustTokenType;
-import org.sonar.sslr.parser.LexerlessGrammar;
-import org.sonar.sslr.parser.ParserAdapter;
-import org.sonarsource.analyzer.commons.TokenLocation;
 
+/**
+ * Computes the highlighting and the CPD tokens of a file in a single pass over its tokens. The kind of text of a token
+ * is looked up by token type, keywords being typed by the {@link org.sonar.rust.RustTokenizer}, consecutive comments and the tokens of a unit test are highlighted as a single range,
+ * and the end of the tokens is found from the line offsets of the file.
+ */
 public class RustTokensVisitor {
 
-  private final Set<String> keywords = new HashSet<>(Arrays.asList(RustKeyword.keywordValues()));
-  private final SensorContext context;
-  private final ParserAdapter<LexerlessGrammar> lexer;
+  private static final TypeOfText[] HIGHLIGHTING_BY_TYPE = new TypeOfText[RustTokenType.values().length];
+
+  static {
+    HIGHLIGHTING_BY_TYPE[RustTokenType.CHARACTER_LITERAL.ordinal()] = TypeOfText.STRING;
+    HIGHLIGHTING_BY_TYPE[RustTokenType.STRING_LITERAL.ordinal()] = TypeOfText.STRING;
+    HIGHLIGHTING_BY_TYPE[RustTokenType.RAW_STRING_LITERAL.ordinal()] = TypeOfText.STRING;
+    HIGHLIGHTING_BY_TYPE[RustTokenType.RAW_BYTE_STRING_LITERAL.ordinal()] = TypeOfText.STRING;
+    HIGHLIGHTING_BY_TYPE[RustTokenType.FLOAT_LITERAL.ordinal()] = TypeOfText.CONSTANT;
+    HIGHLIGHTING_BY_TYPE[RustTokenType.BOOLEAN_LITERAL.ordinal()] = TypeOfText.CONSTANT;
+    HIGHLIGHTING_BY_TYPE[RustTokenType.INTEGER_LITERAL.ordinal()] = TypeOfText.CONSTANT;
+  }
+
+  private final RustSourceTokenizer lexer;
   private final boolean ignoreCPDTests;
+  private final Set<String> unitTestAttributes;
 
-  public RustTokensVisitor(SensorContext context, ParserAdapter<LexerlessGrammar> lexer) {
-    this.context = context;
+  public RustTokensVisitor(SensorContext context, RustSourceTokenizer lexer) {
     this.lexer = lexer;
     this.ignoreCPDTests = context.config().getBoolean(CommunityRustPlugin.IGNORE_DUPLICATION_FOR_TESTS).orElse(false);
+    this.unitTestAttributes = getUnitTestAttributes(context.config());
   }
 
   private static String getTokenImage(Token token) {
-    if (token.getType().equals(RustTokenType.CHARACTER_LITERAL)) {
+    TokenType type = token.getType();
+    if (type == RustTokenType.CHARACTER_LITERAL) {
       return RustTokenType.CHARACTER_LITERAL.getValue();
     }
+    if (type instanceof RustKeyword || type instanceof RustPunctuator) {
+      // lower case already
+      return token.getValue();
+    }
     return token.getValue().toLowerCase(Locale.ENGLISH);
   }
 
-  private static void highlight(NewHighlighting highlighting, TokenLocation tokenLocation, TypeOfText typeOfText) {
-    highlighting.highlight(tokenLocation.startLine(), tokenLocation.startLineOffset(), tokenLocation.endLine(), tokenLocation.endLineOffset(), typeOfText);
-  }
-
-  private static TokenLocation tokenLocation(Token token) {
-    return new TokenLocation(token.getLine(), token.getColumn(), token.getOriginalValue());
-  }
+  public void scanFile(RustVisitorContext visitorContext, RustFileAnalysis analysis) {
+    analysis.startTokens();
 
-  public void scanFile(InputFile inputFile, RustVisitorContext visitorContext) {
-    var highlighting = context.newHighlighting();
-    highlighting.onFile(inputFile);
-
-    var cpdTokens = context.newCpdTokens();
-    cpdTokens.onFile(inputFile);
-
-    List<Token> parsedTokens = lexer.parse(visitorContext.file().content()).getTokens();
-    Set<Token> unitTestTokens = identifyUnitTestTokens(parsedTokens);
-
-    for (Token token : parsedTokens) {
-
-      final var tokenLocation = tokenLocation(token);
-
-      highlightToken(token, tokenLocation, highlighting);
-
-      for (Trivia trivia : token.getTrivia()) {
-        highlight(highlighting, tokenLocation(trivia.getToken()), TypeOfText.COMMENT);
+    List<Token> parsedTokens = visitorContext.tokens();
+    if (parsedTokens == null) {
+      parsedTokens = lexer.tokenize(visitorContext.content());
+    }
+    var unitTests = UnitTestRegions.of(parsedTokens, unitTestAttributes);
+    var location = new Location(visitorContext.fileContent());
+    // start of the unit test being highlighted, or -1
+    int unitTestStartLine = -1;
+    int unitTestStartLineOffset = 0;
+
+    for (int i = 0; i < parsedTokens.size(); i++) {
+      Token token = parsedTokens.get(i);
+      boolean unitTest = unitTests.contains(i);
+
+      highlightComments(token.getTrivia(), location, analysis);
+
+      location.of(token);
+      if (unitTest && unitTestStartLine < 0) {
+        unitTestStartLine = location.startLine;
+        unitTestStartLineOffset = location.startLineOffset;
       }
+      highlightToken(token, location, analysis);
 
-      if (unitTestTokens.contains(token)) {
-        highlight(highlighting, tokenLocation, TypeOfText.ANNOTATION);
+      if (token.getType() != GenericTokenType.EOF && !(unitTest && this.ignoreCPDTests)) {
+        analysis.addCpdToken(location.startLine, location.startLineOffset, location.endLine, location.endLineOffset, getTokenImage(token));
       }
 
-      if (!GenericTokenType.EOF.equals(token.getType()) && !(unitTestTokens.contains(token) && this.ignoreCPDTests)) {
-        cpdTokens.addToken(tokenLocation.startLine(), tokenLocation.startLineOffset(), tokenLocation.endLine(), tokenLocation.endLineOffset(), getTokenImage(token));
+      boolean unitTestEnd = unitTest && (i + 1 == parsedTokens.size() || !unitTests.contains(i + 1));
+      if (unitTestEnd) {
+        analysis.highlight(unitTestStartLine, unitTestStartLineOffset, location.endLine, location.endLineOffset, TypeOfText.ANNOTATION);
+        unitTestStartLine = -1;
       }
     }
-
-    highlighting.save();
-    cpdTokens.save();
   }
 
-  private void highlightToken(Token token, TokenLocation tokenLocation, NewHighlighting highlighting) {
-    final String tokenImage = getTokenImage(token);
-    if (token.getType().equals(RustTokenType.CHARACTER_LITERAL)
-      || token.getType().equals(RustTokenType.STRING_LITERAL)
-      || token.getType().equals(RustTokenType.RAW_STRING_LITERAL)
-      || token.getType().equals(RustTokenType.RAW_BYTE_STRING_LITERAL)
-
-    ) {
-      highlight(highlighting, tokenLocation, TypeOfText.STRING);
-
-    } else if (keywords.contains(tokenImage)) {
-      highlight(highlighting, tokenLocation, TypeOfText.KEYWORD);
+  /**
+   * The comments preceding a token are only separated by whitespace, and are highlighted as a single range.
+   */
+  private static void highlightComments(List<Trivia> trivia, Location location, RustFileAnalysis analysis) {
+    if (trivia.isEmpty()) {
+      return;
+    }
+    location.of(trivia.get(0).getToken());
+    int startLine = location.startLine;
+    int startLineOffset = location.startLineOffset;
+    if (trivia.size() > 1) {
+      location.of(trivia.get(trivia.size() - 1).getToken());
     }
+    analysis.highlight(startLine, startLineOffset, location.endLine, location.endLineOffset, TypeOfText.COMMENT);
+  }
 
-    if (token.getType().equals(RustTokenType.FLOAT_LITERAL)
-      || token.getType().equals(RustTokenType.BOOLEAN_LITERAL)
-      || token.getType().equals(RustTokenType.INTEGER_LITERAL)) {
-      highlight(highlighting, tokenLocation, TypeOfText.CONSTANT);
+  private static void highlightToken(Token token, Location location, RustFileAnalysis analysis) {
+    TokenType type = token.getType();
+    TypeOfText typeOfText = type instanceof RustTokenType ? HIGHLIGHTING_BY_TYPE[((RustTokenType) type).ordinal()] : null;
+    // true and false are keywords as well as literals
+    if (type instanceof RustKeyword || type == RustTokenType.BOOLEAN_LITERAL) {
+      analysis.highlight(location.startLine, location.startLineOffset, location.endLine, location.endLineOffset, TypeOfText.KEYWORD);
+    }
+    if (typeOfText != null) {
+      analysis.highlight(location.startLine, location.startLineOffset, location.endLine, location.endLineOffset, typeOfText);
     }
   }
 
-  private Set<Token> identifyUnitTestTokens(List<Token> parsedTokens) {
-    Set<Token> testTokens = new HashSet<>();
-    Set<String> unitTestsAttributes = getUnitTestAttributes();
-    int i = 0;
-    while (i < parsedTokens.size()) {
-      if ("#".equals(getTokenImage(parsedTokens.get(i))) && ("[".equals(getTokenImage(parsedTokens.get(i + 1))))
-        && (unitTestsAttributes.contains(getTokenImage(parsedTokens.get(i + 2)))) && ("]".equals(getTokenImage(parsedTokens.get(i + 3))))
-        && ("fn".equals(getTokenImage(parsedTokens.get(i + 4))))) {
-        int j = i + 5;
-        // lookup for opening bracket
-        while (!"{".equals(getTokenImage(parsedTokens.get(j)))) {
-          j++;
-        }
+  /**
+   * Position of the last located token, reused from one token to the next. The end of a token is found without
+   * splitting its value, from the line offsets of the file when the token spans several lines.
+   */
+  private static final class Location {
 
-        int cptOpeningBracket = 1;
-        // lookup for outer closing bracket (end of test function position)
-        while (cptOpeningBracket > 0) {
-          j++;
-          String tokenImage = getTokenImage(parsedTokens.get(j));
-          if ("{".equals(tokenImage)) {
-            cptOpeningBracket++;
-          } else if ("}".equals(tokenImage)) {
-            cptOpeningBracket--;
-          }
+    private final RustFileContent content;
+    private int startLine;
+    private int startLineOffset;
+    private int endLine;
+    private int endLineOffset;
 
-        }
+    private Location(RustFileContent content) {
+      this.content = content;
+    }
 
-        // all tokens constituting a test function are added to the set
-        IntStream.rangeClosed(i, j).mapToObj(parsedTokens::get).forEach(testTokens::add);
+    private void of(Token token) {
+      String value = token.getOriginalValue();
+      startLine = token.getLine();
+      startLineOffset = token.getColumn();
+      if (isSingleLine(value)) {
+        endLine = startLine;
+        endLineOffset = startLineOffset + value.length();
+      } else {
+        int end = content.lineStart(startLine) + startLineOffset + value.length();
+        endLine = content.line(end);
+        endLineOffset = end - content.lineStart(endLine);
       }
-      i++;
     }
-    return testTokens;
+
+    private static boolean isSingleLine(String value) {
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c == '\n' || c == '\r') {
+          return false;
+        }
+      }
+      return true;
+    }
+
   }
 
-  private Set<String> getUnitTestAttributes() {
-    Configuration config = context.config();
+  private static Set<String> getUnitTestAttributes(Configuration config) {
     String[] attrs = filterEmptyStrings(config.getStringArray(CommunityRustPlugin.UNIT_TEST_ATTRIBUTES));
     if (attrs.length == 0) {
       attrs = StringUtils.split(CommunityRustPlugin.DEFAULT_UNIT_TEST_ATTRIBUTES, ",");
@@ -170,7 +198,7 @@ public class RustTokensVisitor {
     return Arrays.stream(attrs).collect(Collectors.toSet());
   }
 
-  private String[] filterEmptyStrings(String[] stringArray) {
+  private static String[] filterEmptyStrings(String[] stringArray) {
     List<String> nonEmptyStrings = new ArrayList<>();
     for (String string : stringArray) {
       if (StringUtils.isNotBlank(string.trim())) {
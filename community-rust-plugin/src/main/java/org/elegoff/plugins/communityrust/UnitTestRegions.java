@@ -0,0 +1,184 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.plugins.communityrust;
+
+import com.sonar.sslr.api.Token;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ranges of the tokens of a file belonging to unit tests: the items annotated with one of the unit test attributes,
+ * whose path may have several segments as in {@code #[tokio::test]}, and the items only compiled for tests, annotated
+ * with {@code #[cfg(test)]}. A range goes from the first attribute of the item to the end of its body.
+ * <p>
+ * The ranges are found in a single pass over the tokens, and {@link #contains(int)} expects the tokens to be queried
+ * in order.
+ */
+final class UnitTestRegions {
+
+  private final int[] starts;
+  // inclusive
+  private final int[] ends;
+  private final int size;
+  // first range which does not end before the last queried token
+  private int current;
+
+  private UnitTestRegions(int[] starts, int[] ends, int size) {
+    this.starts = starts;
+    this.ends = ends;
+    this.size = size;
+  }
+
+  static UnitTestRegions of(List<Token> tokens, Set<String> unitTestAttributes) {
+    return new Scan(tokens, unitTestAttributes).regions();
+  }
+
+  /**
+   * @param token index of a token, not lower than the index of the previous call
+   */
+  boolean contains(int token) {
+    while (current < size && ends[current] < token) {
+      current++;
+    }
+    return current < size && starts[current] <= token;
+  }
+
+  private static final class Scan {
+
+    private final List<Token> tokens;
+    private final Set<String> unitTestAttributes;
+    private final int length;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int size;
+
+    private Scan(List<Token> tokens, Set<String> unitTestAttributes) {
+      this.tokens = tokens;
+      this.unitTestAttributes = unitTestAttributes;
+      this.length = tokens.size();
+    }
+
+    private UnitTestRegions regions() {
+      int i = 0;
+      while (i < length) {
+        if (isOuterAttribute(i)) {
+          int start = i;
+          boolean test = false;
+          while (isOuterAttribute(i)) {
+            int end = closing(i + 1, "[", "]");
+            test |= isTestAttribute(i + 2, end);
+            i = end + 1;
+          }
+          if (test) {
+            int end = itemEnd(i);
+            add(start, end);
+            i = end + 1;
+          }
+        } else {
+          i++;
+        }
+      }
+      return new UnitTestRegions(starts, ends, size);
+    }
+
+    private boolean isOuterAttribute(int i) {
+      return i + 1 < length && is(i, "#") && is(i + 1, "[");
+    }
+
+    /**
+     * Attribute whose tokens go from {@code from} to {@code to}, excluded.
+     */
+    private boolean isTestAttribute(int from, int to) {
+      var path = new StringBuilder();
+      int i = from;
+      while (i < to && !is(i, "(") && !is(i, "=")) {
+        path.append(value(i));
+        i++;
+      }
+      if (unitTestAttributes.contains(path.toString())) {
+        return true;
+      }
+      return i + 3 == to && "cfg".contentEquals(path) && is(i, "(") && is(i + 1, "test") && is(i + 2, ")");
+    }
+
+    /**
+     * Last token of the item starting at the given token: the end of its body, or its closing semicolon.
+     */
+    private int itemEnd(int i) {
+      int depth = 0;
+      while (i < length - 1) {
+        String value = value(i);
+        if ("(".equals(value) || "[".equals(value)) {
+          depth++;
+        } else if (")".equals(value) || "]".equals(value)) {
+          depth--;
+        } else if (depth <= 0 && "{".equals(value)) {
+          return closing(i, "{", "}");
+        } else if (depth <= 0 && ";".equals(value)) {
+          return i;
+        }
+        i++;
+      }
+      return length - 1;
+    }
+
+    /**
+     * Token closing the one at the given index, or the last token when it is not closed.
+     */
+    private int closing(int i, String open, String close) {
+      int depth = 0;
+      while (i < length) {
+        String value = value(i);
+        if (open.equals(value)) {
+          depth++;
+        } else if (close.equals(value)) {
+          depth--;
+          if (depth == 0) {
+            return i;
+          }
+        }
+        i++;
+      }
+      return length - 1;
+    }
+
+    private boolean is(int i, String value) {
+      return value.equals(value(i));
+    }
+
+    private String value(int i) {
+      return tokens.get(i).getValue();
+    }
+
+    private void add(int start, int end) {
+      if (size == starts.length) {
+        starts = Arrays.copyOf(starts, size * 2);
+        ends = Arrays.copyOf(ends, size * 2);
+      }
+      starts[size] = start;
+      ends[size] = end;
+      size++;
+    }
+
+  }
+
+}
@@ -21,16 +21,16 @@
 package org.elegoff.plugins.communityrust.clippy;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.function.Consumer;
-import java.util.stream.Stream;
 import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonarsource.analyzer.commons.internal.json.simple.JSONArray;
 import org.sonarsource.analyzer.commons.internal.json.simple.JSONObject;
 import org.sonarsource.analyzer.commons.internal.json.simple.parser.JSONParser;
@@ -39,10 +39,12 @@ import org.sonarsource.analyzer.commons.internal.json.simple.parser.ParseExcepti
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+/**
+ * Reads the output of {@code cargo clippy --message-format=json}, which holds one JSON message per line. Each line is
+ * parsed and handed over to the consumer on its own, so that the memory used does not depend on the size of the report.
+ */
 public class ClippyJsonReportReader {
-  private static final String RESULTS = "results";
-  private static final String BEGINJSON = "{\"" + RESULTS + "\": [";
-  private static final String ENDJSON = "]}";
+  private static final Logger LOG = LoggerFactory.getLogger(ClippyJsonReportReader.class);
   private static final String VISIT_MSG = "for further information visit";
   private static final String MESSAGE = "message";
   private final JSONParser jsonParser = new JSONParser();
@@ -53,8 +55,17 @@ public class ClippyJsonReportReader {
     this.consumer = consumer;
   }
 
-  static void read(InputStream in, Consumer<ClippyIssue> consumer) throws IOException, ParseException {
-    new ClippyJsonReportReader(consumer).read(in);
+  static void read(@Nullable File rawReport, Consumer<ClippyIssue> consumer) throws IOException {
+    if (rawReport == null) {
+      throw new FileNotFoundException();
+    }
+    try (InputStream in = new FileInputStream(rawReport)) {
+      read(in, consumer);
+    }
+  }
+
+  static void read(InputStream in, Consumer<ClippyIssue> consumer) throws IOException {
+    new ClippyJsonReportReader(consumer).read(new BufferedReader(new InputStreamReader(in, UTF_8)));
   }
 
   private static String suggestedMessage(JSONObject obj) {
@@ -74,41 +85,28 @@ public class ClippyJsonReportReader {
     return null;
   }
 
-  public static InputStream toJSON(File rawReport) throws IOException {
-
-    if (rawReport == null) {
-      throw new FileNotFoundException();
-    }
-
-    var sb = new StringBuilder(BEGINJSON);
-
-    // read text report line by line
-    String reportPath = rawReport.getAbsolutePath();
-    BufferedReader reader;
-
-    try (var bufferedReader = reader = new BufferedReader(new FileReader(reportPath))) {
-      String line = reader.readLine();
-      var separator = "";
-      while (line != null) {
-        // a valid Clippy result needs to be a valid json String
-        if (line.startsWith("{") && line.endsWith("}")) {
-          sb.append(separator).append(line);
-          separator = ",";
-        }
-        line = reader.readLine();
+  private void read(BufferedReader reader) throws IOException {
+    var lineNumber = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      // a valid Clippy result needs to be a valid json String
+      if (line.startsWith("{") && line.endsWith("}")) {
+        readLine(line, lineNumber);
       }
     }
-    reader.close();
-    sb.append(ENDJSON);
-    return new ByteArrayInputStream(sb.toString().getBytes());
-
   }
 
-  private void read(InputStream in) throws IOException, ParseException {
-    JSONObject rootObject = (JSONObject) jsonParser.parse(new InputStreamReader(in, UTF_8));
-    JSONArray results = (JSONArray) rootObject.get(RESULTS);
-    if (results != null) {
-      ((Stream<JSONObject>) results.stream()).forEach(this::onResult);
+  private void readLine(String line, int lineNumber) {
+    Object result;
+    try {
+      result = jsonParser.parse(line);
+    } catch (ParseException e) {
+      LOG.debug("Ignoring line {} of Clippy report, which is not valid JSON: {}", lineNumber, e.toString());
+      return;
+    }
+    if (result instanceof JSONObject) {
+      onResult((JSONObject) result);
     }
   }
 
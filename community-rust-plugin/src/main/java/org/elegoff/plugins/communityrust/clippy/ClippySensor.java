@@ -22,12 +22,10 @@ package org.elegoff.plugins.communityrust.clippy;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
-import javax.annotation.CheckForNull;
 import org.elegoff.plugins.communityrust.language.RustLanguage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +38,6 @@ import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.batch.sensor.issue.NewIssueLocation;
 import org.sonar.api.rules.RuleType;
 import org.sonarsource.analyzer.commons.ExternalReportProvider;
-import org.sonarsource.analyzer.commons.internal.json.simple.parser.ParseException;
 
 
 import static org.apache.commons.lang3.StringUtils.isEmpty;
@@ -56,19 +53,13 @@ public class ClippySensor implements Sensor {
 
   private FileAdjustor fileAdjustor;
 
-  @CheckForNull
-  private InputFile inputFile(SensorContext context, String filePath) {
-    String relativePath = fileAdjustor.relativePath(filePath);
-    return context.fileSystem().inputFile(context.fileSystem().predicates().hasPath(relativePath));
-  }
-
   private void saveIssue(SensorContext context, ClippyJsonReportReader.ClippyIssue clippyIssue, Set<String> unresolvedInputFiles) {
     if (isEmpty(clippyIssue.ruleKey) || isEmpty(clippyIssue.filePath) || isEmpty(clippyIssue.message)) {
       LOG.debug("Missing information for ruleKey:'{}', filePath:'{}', message:'{}'", clippyIssue.ruleKey, clippyIssue.filePath, clippyIssue.message);
       return;
     }
 
-    InputFile inputFile = inputFile(context, clippyIssue.filePath);
+    InputFile inputFile = fileAdjustor.inputFile(clippyIssue.filePath);
 
     if (inputFile == null) {
       unresolvedInputFiles.add(clippyIssue.filePath);
@@ -119,9 +110,8 @@ public class ClippySensor implements Sensor {
     LOG.info("Importing {}", rawReport);
 
     try {
-      InputStream in = ClippyJsonReportReader.toJSON(rawReport);
-      ClippyJsonReportReader.read(in, clippyIssue -> saveIssue(context, clippyIssue, unresolvedInputFiles));
-    } catch (IOException | ParseException e) {
+      ClippyJsonReportReader.read(rawReport, clippyIssue -> saveIssue(context, clippyIssue, unresolvedInputFiles));
+    } catch (IOException e) {
       LOG.error("No issues information will be saved as the report file '{}' can't be read. " +
         e.getClass().getSimpleName() + ": " + e.getMessage(), rawReport, e);
     }
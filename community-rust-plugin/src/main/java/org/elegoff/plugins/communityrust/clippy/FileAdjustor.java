@@ -21,67 +21,56 @@
 package org.elegoff.plugins.communityrust.clippy;
 
 import java.io.File;
-import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.elegoff.plugins.communityrust.language.RustLanguage;
 import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 
+/**
+ * Resolves the paths of a Clippy report, which are relative to the Cargo workspace or absolute, to the Rust files of
+ * the project. Each path is resolved on its own, so that crates of several workspaces at different depths are found.
+ */
 public class FileAdjustor {
-  private final FileSystem fileSystem;
-  private int relativePathOffset = 0;
+  private static final int MAX_CACHED_PATHS = 10_000;
+
+  private final SuffixPathIndex index;
+  // the diagnostics of a file usually follow each other in a report
+  private final Map<String, InputFile> resolvedPaths = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, InputFile> eldest) {
+      return size() > MAX_CACHED_PATHS;
+    }
+  };
 
   private FileAdjustor(FileSystem fileSystem) {
-    this.fileSystem = fileSystem;
+    index = new SuffixPathIndex(fileSystem.baseDir().toPath());
+    fileSystem.inputFiles(fileSystem.predicates().hasLanguage(RustLanguage.KEY)).forEach(index::index);
   }
 
   public static FileAdjustor create(SensorContext context) {
     return new FileAdjustor(context.fileSystem());
   }
 
-  public String relativePath(String fileName) {
-    if (isKnown(fileName)) {
-      return fileName;
-    }
-
-    String normalizedPath = chooseSeparator(fileName);
-    if (normalizedPath == null) {
-      return fileName;
+  @CheckForNull
+  public InputFile inputFile(String fileName) {
+    InputFile inputFile = resolvedPaths.get(fileName);
+    if (inputFile == null && !resolvedPaths.containsKey(fileName)) {
+      inputFile = index.getFileWithSuffix(fileName);
+      resolvedPaths.put(fileName, inputFile);
     }
+    return inputFile;
+  }
 
-    // Handle absolute paths by removing the root component
-    Path path = Path.of(normalizedPath);
-    if (path.isAbsolute()) {
-      path = path.getRoot().relativize(path);
-    }
-    
-    int pathNameCount = path.getNameCount();
-
-    if (relativePathOffset > 0) {
-      if (pathNameCount > relativePathOffset) {
-        path = path.subpath(relativePathOffset, pathNameCount);
-        if (isKnown(path)) {
-          return path.toString();
-        }
-      }
+  public String relativePath(String fileName) {
+    InputFile inputFile = inputFile(fileName);
+    if (inputFile == null) {
       return fileName;
     }
-
-    // Try to find the correct offset by removing path components from the start
-    for (int i = 0; i < pathNameCount - 1; i++) {
-      Path subpath = path.subpath(i, pathNameCount);
-      if (isKnown(subpath)) {
-        relativePathOffset = i;
-        return subpath.toString();
-      }
-    }
-
-    // Try just the file name as a last resort
-    Path lastComponent = path.getFileName();
-    if (isKnown(lastComponent)) {
-      relativePathOffset = pathNameCount - 1;
-      return lastComponent.toString();
-    }
-
-    return fileName;
+    String relativePath = chooseSeparator(index.relativePath(inputFile));
+    return relativePath.equals(chooseSeparator(fileName)) ? fileName : relativePath;
   }
 
   private static String chooseSeparator(String path) {
@@ -99,12 +88,4 @@ public class FileAdjustor {
   private static String windowsSeparators(String path) {
     return path.indexOf(47) != -1 ? path.replace('/', '\\') : path;
   }
-
-  private boolean isKnown(Path path) {
-    return isKnown(path.toString());
-  }
-
-  private boolean isKnown(String path) {
-    return fileSystem.hasFiles(fileSystem.predicates().hasPath(path));
-  }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.plugins.communityrust.clippy;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Index of input files by the reversed components of their relative path. A path of a report is resolved by walking its
+ * components from the file name upwards, so that the cost of a lookup only depends on the depth of the path.
+ */
+class SuffixPathIndex {
+  private final Node root = new Node();
+  private final Path baseDir;
+
+  SuffixPathIndex(Path baseDir) {
+    this.baseDir = baseDir.toAbsolutePath().normalize();
+  }
+
+  void index(InputFile inputFile) {
+    var currentNode = root;
+    currentNode.fileCount++;
+    String[] path = split(relativePath(inputFile));
+    for (int i = path.length - 1; i >= 0; i--) {
+      currentNode = currentNode.children.computeIfAbsent(path[i], e -> new Node());
+      currentNode.fileCount++;
+    }
+    currentNode.file = inputFile;
+  }
+
+  /**
+   * Returns the file with the longest relative path which is a suffix of the given path, e.g. {@code crate/src/lib.rs}
+   * for {@code /home/ci/workspace/crate/src/lib.rs}. When the given path is itself a suffix of the relative path of
+   * exactly one file, e.g. {@code src/lib.rs} for a project whose base directory is a parent of the Cargo workspace,
+   * this file is returned.
+   */
+  @CheckForNull
+  InputFile getFileWithSuffix(String path) {
+    String[] components = split(path);
+    var currentNode = root;
+    InputFile longestSuffix = null;
+    for (int i = components.length - 1; i >= 0; i--) {
+      currentNode = currentNode.children.get(components[i]);
+      if (currentNode == null) {
+        return longestSuffix;
+      }
+      if (currentNode.file != null) {
+        longestSuffix = currentNode.file;
+      }
+    }
+    if (currentNode.file == null && currentNode.fileCount == 1) {
+      return getSingleLeaf(currentNode);
+    }
+    return longestSuffix;
+  }
+
+  /**
+   * Path of the given file relative to the base directory of the project, with the separators of the platform.
+   */
+  String relativePath(InputFile inputFile) {
+    return baseDir.relativize(inputFile.path().toAbsolutePath().normalize()).toString();
+  }
+
+  private static InputFile getSingleLeaf(Node node) {
+    while (node.file == null) {
+      node = node.children.values().iterator().next();
+    }
+    return node.file;
+  }
+
+  private static String[] split(String path) {
+    return path.split("[/\\\\]+");
+  }
+
+  private static class Node {
+    final Map<String, Node> children = new HashMap<>();
+    // number of files indexed below this node
+    int fileCount = 0;
+    InputFile file = null;
+  }
+}
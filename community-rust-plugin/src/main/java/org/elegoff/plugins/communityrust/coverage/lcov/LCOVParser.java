@@ -20,19 +20,22 @@
  */
 package org.elegoff.plugins.communityrust.coverage.lcov;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import javax.annotation.CheckForNull;
+import org.elegoff.plugins.communityrust.language.RustLanguage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.fs.InputFile;
@@ -40,41 +43,58 @@ import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.coverage.NewCoverage;
 
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.elegoff.plugins.communityrust.coverage.lcov.LCOVFields.BRDA;
 import static org.elegoff.plugins.communityrust.coverage.lcov.LCOVFields.DA;
 import static org.elegoff.plugins.communityrust.coverage.lcov.LCOVFields.SF;
 
+/**
+ * Reads LCOV reports one line at a time. Only the coverage of the files of the project is kept in memory, in arrays
+ * sized by their number of lines, so that the memory used does not depend on the size of the reports.
+ */
 public class LCOVParser {
 
   private static final Logger LOG = LoggerFactory.getLogger(LCOVParser.class);
-  private final Map<InputFile, NewCoverage> fileCoverage;
+  private static final String SF_PREFIX = SF + ":";
+  private static final String DA_PREFIX = DA + ":";
+  private static final String BRDA_PREFIX = BRDA + ":";
+  private final Map<InputFile, FileContent> files = new LinkedHashMap<>();
+  // a file is usually covered by many records of a merged report
+  private final Map<String, FileContent> filesByPath = new HashMap<>();
   private final SensorContext sensorContext;
   private final Set<String> unknownPaths = new LinkedHashSet<>();
   private final FileChooser fc;
   private int pbCount = 0;
 
-  private LCOVParser(List<String> lines, SensorContext sensorContext, FileChooser fc) {
+  private LCOVParser(SensorContext sensorContext, FileChooser fc) {
     this.sensorContext = sensorContext;
     this.fc = fc;
-    this.fileCoverage = parse(lines);
   }
 
   static LCOVParser build(SensorContext context, List<File> files, FileChooser fileChooser) {
-    final List<String> lines;
-    lines = new LinkedList<>();
-    for (int i = 0, filesSize = files.size(); i < filesSize; i++) {
-      var file = files.get(i);
-      try (Stream<String> fileLines = Files.lines(file.toPath())) {
-        lines.addAll(fileLines.collect(Collectors.toList()));
+    var parser = new LCOVParser(context, fileChooser);
+    for (File file : files) {
+      try (BufferedReader reader = Files.newBufferedReader(file.toPath(), UTF_8)) {
+        parser.parse(reader);
       } catch (IOException e) {
         throw new IllegalArgumentException("Could not read content from file: " + file, e);
       }
     }
-    return new LCOVParser(lines, context, fileChooser);
+    return parser;
   }
 
-  Map<InputFile, NewCoverage> getFileCoverage() {
-    return fileCoverage;
+  /**
+   * Saves the coverage of every file found in the reports, releasing it once saved.
+   */
+  void saveCoverage() {
+    for (Iterator<Map.Entry<InputFile, FileContent>> iterator = files.entrySet().iterator(); iterator.hasNext(); ) {
+      Map.Entry<InputFile, FileContent> e = iterator.next();
+      NewCoverage newCoverage = sensorContext.newCoverage().onFile(e.getKey());
+      e.getValue().save(newCoverage);
+      newCoverage.save();
+      iterator.remove();
+    }
+    filesByPath.clear();
   }
 
   List<String> unknownPaths() {
@@ -85,46 +105,48 @@ public class LCOVParser {
     return pbCount;
   }
 
-  private Map<InputFile, NewCoverage> parse(List<String> lines) {
-    final Map<InputFile, FileContent> files = new HashMap<>();
+  private void parse(BufferedReader reader) throws IOException {
     FileContent fileContent = null;
     var reportLineNum = 0;
+    String line;
 
-    for (String line : lines) {
+    while ((line = reader.readLine()) != null) {
       reportLineNum++;
-      if (line.startsWith(String.valueOf(SF))) {
-        fileContent = files.computeIfAbsent(inputFileForSourceFile(line),
-          inputFile -> inputFile == null ? null : new FileContent(inputFile));
+      if (line.startsWith(SF_PREFIX)) {
+        fileContent = fileContent(line.substring(SF_PREFIX.length()));
 
       } else if (fileContent != null) {
-        if (line.startsWith(String.valueOf(DA))) {
+        if (line.startsWith(DA_PREFIX)) {
           parseLineCoverage(fileContent, reportLineNum, line);
 
-        } else if (line.startsWith(String.valueOf(BRDA))) {
+        } else if (line.startsWith(BRDA_PREFIX)) {
           parseBranchCoverage(fileContent, reportLineNum, line);
         }
       }
-
     }
+  }
 
-    Map<InputFile, NewCoverage> coveredFiles = new HashMap<>();
-
-    files.entrySet().forEach(e -> {
-      var newCoverage = sensorContext.newCoverage().onFile(e.getKey());
-      e.getValue().save(newCoverage);
-      coveredFiles.put(e.getKey(), newCoverage);
-    });
-    return coveredFiles;
+  @CheckForNull
+  private FileContent fileContent(String filePath) {
+    FileContent fileContent = filesByPath.get(filePath);
+    if (fileContent == null && !filesByPath.containsKey(filePath)) {
+      InputFile inputFile = inputFileForSourceFile(filePath);
+      if (inputFile != null && RustLanguage.KEY.equals(inputFile.language())) {
+        fileContent = files.computeIfAbsent(inputFile, FileContent::new);
+      }
+      filesByPath.put(filePath, fileContent);
+    }
+    return fileContent;
   }
 
   private void parseBranchCoverage(FileContent fileContent, int linum, String line) {
     try {
-      String[] tokens = line.substring(String.valueOf(BRDA).length() + 1).trim().split(",");
+      String[] tokens = line.substring(BRDA_PREFIX.length()).trim().split(",");
       String lineNumber = tokens[0];
       String branchNumber = tokens[1] + tokens[2];
       String taken = tokens[3];
 
-      fileContent.newBranch(Integer.valueOf(lineNumber), branchNumber, "-".equals(taken) ? 0 : Integer.valueOf(taken));
+      fileContent.newBranch(Integer.parseInt(lineNumber), branchNumber, !"-".equals(taken) && Long.parseLong(taken) > 0);
     } catch (Exception e) {
       logMismatch(String.valueOf(BRDA), linum, e);
     }
@@ -132,11 +154,11 @@ public class LCOVParser {
 
   private void parseLineCoverage(FileContent fileContent, int linum, String line) {
     try {
-      var execution = line.substring(String.valueOf(DA).length() + 1);
+      var execution = line.substring(DA_PREFIX.length());
       var executionCount = execution.substring(execution.indexOf(',') + 1);
       var lineNumber = execution.substring(0, execution.indexOf(','));
 
-      fileContent.newLine(Integer.valueOf(lineNumber), Integer.valueOf(executionCount));
+      fileContent.newLine(Integer.parseInt(lineNumber), Integer.parseInt(executionCount));
     } catch (Exception e) {
       logMismatch(String.valueOf(DA), linum, e);
     }
@@ -149,9 +171,7 @@ public class LCOVParser {
   }
 
   @CheckForNull
-  private InputFile inputFileForSourceFile(String line) {
-    String filePath;
-    filePath = line.substring(String.valueOf(SF).length() + 1);
+  private InputFile inputFileForSourceFile(String filePath) {
     var inputFile = sensorContext.fileSystem().inputFile(sensorContext.fileSystem().predicates().hasPath(filePath));
 
     if (inputFile == null) {
@@ -167,50 +187,71 @@ public class LCOVParser {
 
   private static class FileContent {
     private static final String WRONG_LINE_MSG = "Line number %s doesn't exist in file %s";
+    private static final int NO_HITS = -1;
     private final int linesInFile;
     private final String filename;
-    private final Map<Integer, Map<String, Integer>> branches = new HashMap<>();
-    private final Map<Integer, Integer> hits = new HashMap<>();
+    // indexed by line number, NO_HITS for the lines without DA record
+    private final int[] hits;
+    // indexed by line number, allocated on the first BRDA record: whether each branch of the line was taken
+    private List<Map<String, Boolean>> branches;
 
     FileContent(InputFile inputFile) {
       linesInFile = inputFile.lines();
       filename = inputFile.filename();
+      hits = new int[linesInFile + 1];
+      Arrays.fill(hits, NO_HITS);
     }
 
-    private void validateLine(Integer linum) {
+    private void validateLine(int linum) {
       if (linum >= 1 && linum <= linesInFile) {
         return;
       }
       throw new IllegalArgumentException(String.format(WRONG_LINE_MSG, linum, filename));
     }
 
-    void newLine(Integer lineNumber, Integer executionCount) {
+    void newLine(int lineNumber, int executionCount) {
       validateLine(lineNumber);
-      hits.merge(lineNumber, executionCount, Integer::sum);
+      int previous = Math.max(hits[lineNumber], 0);
+      hits[lineNumber] = (int) Math.min((long) previous + executionCount, Integer.MAX_VALUE);
     }
 
-    void newBranch(Integer lineNumber, String branchNumber, Integer taken) {
+    void newBranch(int lineNumber, String branchNumber, boolean taken) {
       validateLine(lineNumber);
-      Map<String, Integer> branchesForLine = branches.computeIfAbsent(lineNumber, l -> new HashMap<>());
-      branchesForLine.merge(branchNumber, taken, Integer::sum);
+      if (branches == null) {
+        branches = new ArrayList<>(Collections.nCopies(linesInFile + 1, null));
+      }
+      Map<String, Boolean> branchesForLine = branches.get(lineNumber);
+      if (branchesForLine == null) {
+        branchesForLine = new HashMap<>();
+        branches.set(lineNumber, branchesForLine);
+      }
+      branchesForLine.merge(branchNumber, taken, Boolean::logicalOr);
     }
 
     void save(NewCoverage newCoverage) {
-      for (Map.Entry<Integer, Integer> e : hits.entrySet()) {
-        newCoverage.lineHits(e.getKey(), e.getValue());
+      for (var line = 1; line <= linesInFile; line++) {
+        if (hits[line] != NO_HITS) {
+          newCoverage.lineHits(line, hits[line]);
+        }
+      }
+      if (branches == null) {
+        return;
       }
-      for (Map.Entry<Integer, Map<String, Integer>> e : branches.entrySet()) {
-        int line = e.getKey();
-        int conditions = e.getValue().size();
+      for (var line = 1; line <= linesInFile; line++) {
+        Map<String, Boolean> branchesForLine = branches.get(line);
+        if (branchesForLine == null) {
+          continue;
+        }
+        int conditions = branchesForLine.size();
         var covered = 0;
-        for (Integer taken : e.getValue().values()) {
-          if (taken > 0) {
+        for (Boolean taken : branchesForLine.values()) {
+          if (taken) {
             covered++;
           }
         }
 
         newCoverage.conditions(line, conditions, covered);
-        newCoverage.lineHits(line, hits.getOrDefault(line, 0) + covered);
+        newCoverage.lineHits(line, Math.max(hits[line], 0) + covered);
       }
     }
 
@@ -25,20 +25,16 @@ import org.elegoff.plugins.communityrust.coverage.RustFileSystem;
 import org.elegoff.plugins.communityrust.language.RustLanguage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
-import org.sonar.api.batch.sensor.coverage.NewCoverage;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.WildcardPattern;
 
 import javax.annotation.CheckForNull;
 import java.io.File;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 public class LCOVSensor implements Sensor {
@@ -52,16 +48,7 @@ public class LCOVSensor implements Sensor {
     var fileChooser = new FileChooser(fileSystem.inputFiles(mainFilePredicate));
     var parser = LCOVParser.build(context, lcovFiles, fileChooser);
 
-    Map<InputFile, NewCoverage> coveredFiles = parser.getFileCoverage();
-
-    for (Iterator<InputFile> iterator = fileSystem.inputFiles(mainFilePredicate).iterator(); iterator.hasNext(); ) {
-      var inputFile = iterator.next();
-      NewCoverage fileCoverage = coveredFiles.get(inputFile);
-
-      if (fileCoverage != null) {
-        fileCoverage.save();
-      }
-    }
+    parser.saveCoverage();
 
     List<String> unresolvedPaths = parser.unknownPaths();
     if (!unresolvedPaths.isEmpty()) {
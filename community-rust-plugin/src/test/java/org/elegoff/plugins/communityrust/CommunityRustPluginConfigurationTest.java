@@ -21,6 +21,7 @@
 package org.elegoff.plugins.communityrust;
 
 import java.nio.charset.Charset;
+import java.time.Duration;
 import org.elegoff.plugins.communityrust.settings.RustLanguageSettings;
 import org.junit.jupiter.api.Test;
 import org.sonar.api.config.internal.MapSettings;
@@ -38,6 +39,19 @@ class CommunityRustPluginConfigurationTest {
     assertThat(pluginConf.getParserConfiguration(charset).getCharset()).isEqualTo(charset);
   }
 
+  @Test
+  void getParserConfigurationTimeout() {
+    CommunityRustPluginConfiguration pluginConf = new CommunityRustPluginConfiguration();
+    Charset charset = mock(Charset.class);
+
+    MapSettings settings = getDefaultSettings();
+    assertThat(pluginConf.getParserConfiguration(charset, settings.asConfig()).getParseTimeout()).isEqualTo(Duration.ofSeconds(60));
+    settings.setProperty(CommunityRustPlugin.ANALYSIS_TIMEOUT, 5);
+    assertThat(pluginConf.getParserConfiguration(charset, settings.asConfig()).getParseTimeout()).isEqualTo(Duration.ofSeconds(5));
+    settings.setProperty(CommunityRustPlugin.ANALYSIS_TIMEOUT, -1);
+    assertThat(pluginConf.getParserConfiguration(charset, settings.asConfig()).getParseTimeout()).isEqualTo(Duration.ZERO);
+  }
+
   static MapSettings getDefaultSettings() {
     return new MapSettings()
       .setProperty(RustLanguageSettings.FILE_SUFFIXES_KEY, ".foo");
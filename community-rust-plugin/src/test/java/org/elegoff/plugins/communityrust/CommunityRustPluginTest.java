@@ -38,9 +38,9 @@ class CommunityRustPluginTest {
   void testGetExtensions() {
     Version v79 = Version.create(7, 9);
     SonarRuntime runtime = SonarRuntimeImpl.forSonarQube(v79, SonarQubeSide.SERVER, SonarEdition.DEVELOPER);
-    assertThat(extensions(runtime)).hasSize(17);
+    assertThat(extensions(runtime)).hasSize(22);
     assertThat(extensions(runtime)).contains(ClippyRulesDefinition.class);
-    assertThat(extensions(SonarRuntimeImpl.forSonarLint(v79))).hasSize(17);
+    assertThat(extensions(SonarRuntimeImpl.forSonarLint(v79))).hasSize(22);
   }
 
   private static List extensions(SonarRuntime runtime) {
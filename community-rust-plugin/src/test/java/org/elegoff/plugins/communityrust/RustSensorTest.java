@@ -20,34 +20,56 @@
  */
 package org.elegoff.plugins.communityrust;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import org.elegoff.plugins.communityrust.language.RustLanguage;
+import org.elegoff.rust.checks.CheckList;
+import org.elegoff.rust.checks.RustCheck;
 import org.fest.assertions.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.event.Level;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.rule.CheckFactory;
 import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.FileLinesContext;
 import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.notifications.AnalysisWarnings;
+import org.sonar.api.rule.RuleKey;
 import org.sonar.api.testfixtures.log.LogTesterJUnit5;
+import org.sonar.rust.RustParserConfiguration;
+import org.sonar.rust.RustParserPool;
+import org.sonar.rust.RustRecoveringParser;
 
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -61,6 +83,8 @@ class RustSensorTest {
   @RegisterExtension
   public LogTesterJUnit5 traceLogTester = new LogTesterJUnit5().setLevel(Level.TRACE);
   private FileLinesContext fileLinesContext;
+  private FileLinesContextFactory fileLinesContextFactory;
+  private AnalysisWarnings analysisWarnings;
   private SensorContextTester tester;
   private RustSensor sensor;
 
@@ -71,12 +95,13 @@ class RustSensorTest {
     MapSettings settings = CommunityRustPluginConfigurationTest.getDefaultSettings();
     tester.setSettings(settings);
 
-    FileLinesContextFactory fileLinesContextFactory = mock(FileLinesContextFactory.class);
+    fileLinesContextFactory = mock(FileLinesContextFactory.class);
     fileLinesContext = mock(FileLinesContext.class);
     when(fileLinesContextFactory.createFor(any(InputFile.class))).thenReturn(fileLinesContext);
     ActiveRulesBuilder activeRuleBuilder = new ActiveRulesBuilder();
     CheckFactory checkFactory = new CheckFactory(activeRuleBuilder.build());
-    sensor = new RustSensor(checkFactory, fileLinesContextFactory);
+    analysisWarnings = mock(AnalysisWarnings.class);
+    sensor = new RustSensor(checkFactory, fileLinesContextFactory, analysisWarnings);
   }
 
   @Test
@@ -85,7 +110,8 @@ class RustSensorTest {
 
     assertEquals((Integer) 10, tester.measure(inputFile.key(), CoreMetrics.NCLOC).value());
     assertEquals((Integer) 4, tester.measure(inputFile.key(), CoreMetrics.STATEMENTS).value());
-    assertEquals((Integer) 4, tester.measure(inputFile.key(), CoreMetrics.COMPLEXITY).value());
+    assertEquals((Integer) 2, tester.measure(inputFile.key(), CoreMetrics.COMPLEXITY).value());
+    assertEquals((Integer) 0, tester.measure(inputFile.key(), CoreMetrics.COGNITIVE_COMPLEXITY).value());
     assertEquals((Integer) 1, tester.measure(inputFile.key(), CoreMetrics.COMMENT_LINES).value());
     assertEquals((Integer) 2, tester.measure(inputFile.key(), CoreMetrics.FUNCTIONS).value());
     assertEquals(10, tester.cpdTokens(inputFile.key()).size());
@@ -128,18 +154,334 @@ class RustSensorTest {
     tester.settings().setProperty(CommunityRustPlugin.IGNORE_DUPLICATION_FOR_TESTS, true);
     DefaultInputFile inputFile = executeSensorOnSingleFile("sensor/cpd.rs");
 
-    assertEquals(3, tester.cpdTokens(inputFile.key()).size());
+    // the tests are in a #[cfg(test)] module, which is entirely ignored
+    assertEquals(0, tester.cpdTokens(inputFile.key()).size());
     verify(fileLinesContext).save();
     assertEquals(Collections.singletonList(TypeOfText.ANNOTATION), tester.highlightingTypeAt(inputFile.key(), 5, 5));
     Assertions.assertThat(tester.allAnalysisErrors()).isEmpty();
   }
 
+  @Test
+  void highlightMergedRanges() {
+    DefaultInputFile inputFile = new TestInputFileBuilder(tester.module().key(), "ranges.rs")
+      .setModuleBaseDir(tester.fileSystem().baseDirPath())
+      .setType(InputFile.Type.MAIN)
+      .setLanguage(RustLanguage.KEY)
+      .setCharset(StandardCharsets.UTF_8)
+      .setContents("// first\n  // second\nfn main() {\n  let s = \"a\r\nbc\";\n}\n")
+      .build();
+    tester.fileSystem().add(inputFile);
+    sensor.execute(tester);
+
+    // both comments are a single range, ending with the second one
+    assertEquals(Collections.singletonList(TypeOfText.COMMENT), tester.highlightingTypeAt(inputFile.key(), 2, 0));
+    assertEquals(Collections.singletonList(TypeOfText.COMMENT), tester.highlightingTypeAt(inputFile.key(), 2, 10));
+    assertEquals(Collections.emptyList(), tester.highlightingTypeAt(inputFile.key(), 2, 11));
+    assertEquals(Collections.singletonList(TypeOfText.KEYWORD), tester.highlightingTypeAt(inputFile.key(), 3, 0));
+    // the string spans two lines
+    assertEquals(Collections.singletonList(TypeOfText.STRING), tester.highlightingTypeAt(inputFile.key(), 5, 2));
+    assertEquals(Collections.emptyList(), tester.highlightingTypeAt(inputFile.key(), 5, 3));
+  }
+
+  @Test
+  void parseErrorKeepsParsableItems() {
+    DefaultInputFile inputFile = new TestInputFileBuilder(tester.module().key(), "error.rs")
+      .setModuleBaseDir(tester.fileSystem().baseDirPath())
+      .setType(InputFile.Type.MAIN)
+      .setLanguage(RustLanguage.KEY)
+      .setCharset(StandardCharsets.UTF_8)
+      .setContents("fn a() {\n  let x = 1;\n}\nfn b() { let = ; }\nfn c() {}\n")
+      .build();
+    tester.fileSystem().add(inputFile);
+    sensor.execute(tester);
+
+    Assertions.assertThat(tester.allAnalysisErrors()).hasSize(1);
+    assertEquals((Integer) 5, tester.measure(inputFile.key(), CoreMetrics.NCLOC).value());
+    assertEquals((Integer) 2, tester.measure(inputFile.key(), CoreMetrics.FUNCTIONS).value());
+    assertEquals(Collections.singletonList(TypeOfText.KEYWORD), tester.highlightingTypeAt(inputFile.key(), 4, 0));
+    verify(analysisWarnings, times(0)).addUnique(any());
+  }
+
+  @Test
+  void unrecoverableParseErrorKeepsLexicalMetrics() {
+    DefaultInputFile inputFile = new TestInputFileBuilder(tester.module().key(), "error.rs")
+      .setModuleBaseDir(tester.fileSystem().baseDirPath())
+      .setType(InputFile.Type.MAIN)
+      .setLanguage(RustLanguage.KEY)
+      .setCharset(StandardCharsets.UTF_8)
+      .setContents("fn f() { let = ; }\n".repeat(20))
+      .build();
+    tester.fileSystem().add(inputFile);
+    sensor.execute(tester);
+
+    Assertions.assertThat(tester.allAnalysisErrors()).hasSize(1);
+    assertEquals((Integer) 20, tester.measure(inputFile.key(), CoreMetrics.NCLOC).value());
+    Assertions.assertThat(tester.measure(inputFile.key(), CoreMetrics.FUNCTIONS)).isNull();
+    verify(analysisWarnings).addUnique(contains("error.rs could not be parsed"));
+  }
+
   private DefaultInputFile executeSensorOnSingleFile(String fileName) throws IOException {
     DefaultInputFile inputFile = addInputFile(fileName);
     sensor.execute(tester);
     return inputFile;
   }
 
+  @Test
+  void analyseInParallel() throws IOException {
+    tester.settings().setProperty(CommunityRustPlugin.ANALYSIS_THREADS, 3);
+    sensor = new RustSensor(lineLengthCheckFactory(20), fileLinesContextFactory, analysisWarnings);
+    DefaultInputFile lib = addInputFile(LIBFILE);
+    DefaultInputFile simple = addInputFile(SIMPLE);
+    DefaultInputFile cpd = addInputFile("sensor/cpd.rs");
+    sensor.execute(tester);
+
+    assertEquals((Integer) 10, tester.measure(simple.key(), CoreMetrics.NCLOC).value());
+    assertEquals((Integer) 2, tester.measure(simple.key(), CoreMetrics.FUNCTIONS).value());
+    assertEquals(10, tester.cpdTokens(simple.key()).size());
+    assertEquals(212, tester.cpdTokens(cpd.key()).size());
+    assertEquals(Collections.singletonList(TypeOfText.KEYWORD), tester.highlightingTypeAt(simple.key(), 1, 1));
+    Assertions.assertThat(tester.measure(lib.key(), CoreMetrics.NCLOC)).isNotNull();
+    Assertions.assertThat(tester.allIssues()).isNotEmpty();
+    Assertions.assertThat(tester.allAnalysisErrors()).isEmpty();
+  }
+
+  @Test
+  void parallelAndSequentialAnalysisRaiseSameIssues() throws IOException {
+    sensor = new RustSensor(lineLengthCheckFactory(20), fileLinesContextFactory, analysisWarnings);
+    addInputFile(LIBFILE);
+    addInputFile(SIMPLE);
+    addInputFile("sensor/cpd.rs");
+    sensor.execute(tester);
+    int sequentialIssues = tester.allIssues().size();
+
+    init();
+    tester.settings().setProperty(CommunityRustPlugin.ANALYSIS_THREADS, 0);
+    sensor = new RustSensor(lineLengthCheckFactory(20), fileLinesContextFactory, analysisWarnings);
+    addInputFile(LIBFILE);
+    addInputFile(SIMPLE);
+    addInputFile("sensor/cpd.rs");
+    sensor.execute(tester);
+
+    assertEquals(sequentialIssues, tester.allIssues().size());
+  }
+
+  private static CheckFactory lineLengthCheckFactory(int maximumLineLength) {
+    return new CheckFactory(new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, "LineLength"))
+        .setParam("maximumLineLength", Integer.toString(maximumLineLength))
+        .build())
+      .build());
+  }
+
+  @Test
+  void restoreUnchangedFilesFromAnalysisCache() throws IOException {
+    var previousCache = new InMemoryCache();
+    tester.setCacheEnabled(true);
+    tester.setPreviousCache(previousCache);
+    tester.setNextCache(previousCache);
+    sensor = new RustSensor(lineLengthCheckFactory(20), fileLinesContextFactory, analysisWarnings);
+    addInputFile(LIBFILE);
+    addInputFile(SIMPLE);
+    sensor.execute(tester);
+    List<String> issues = issueMessages();
+    Assertions.assertThat(previousCache.entries).hasSize(2);
+
+    init();
+    var nextCache = new InMemoryCache();
+    tester.setCacheEnabled(true);
+    tester.setPreviousCache(previousCache);
+    tester.setNextCache(nextCache);
+    sensor = new RustSensor(lineLengthCheckFactory(20), fileLinesContextFactory, analysisWarnings);
+    addInputFile(LIBFILE);
+    DefaultInputFile simple = addInputFile(SIMPLE);
+    sensor.execute(tester);
+
+    Assertions.assertThat(logTester.logs()).contains("2/2 Rust files restored from the analysis cache");
+    Assertions.assertThat(nextCache.copiedFromPrevious).hasSize(2);
+    Assertions.assertThat(issueMessages()).isEqualTo(issues);
+    assertEquals((Integer) 10, tester.measure(simple.key(), CoreMetrics.NCLOC).value());
+    assertEquals((Integer) 2, tester.measure(simple.key(), CoreMetrics.COMPLEXITY).value());
+    assertEquals((Integer) 0, tester.measure(simple.key(), CoreMetrics.COGNITIVE_COMPLEXITY).value());
+    assertEquals(10, tester.cpdTokens(simple.key()).size());
+    assertEquals(Collections.singletonList(TypeOfText.STRING), tester.highlightingTypeAt(simple.key(), 6, 13));
+    verify(fileLinesContext, times(2)).save();
+  }
+
+  @Test
+  void restoreUnchangedFilesFromCacheDirectory(@TempDir Path cacheDirectory) throws IOException {
+    tester.settings().setProperty(CommunityRustPlugin.ANALYSIS_CACHE_PATH, cacheDirectory.toString());
+    addInputFile(SIMPLE);
+    sensor.execute(tester);
+    Assertions.assertThat(cacheDirectory.toFile().list()).hasSize(1);
+
+    init();
+    tester.settings().setProperty(CommunityRustPlugin.ANALYSIS_CACHE_PATH, cacheDirectory.toString());
+    DefaultInputFile simple = addInputFile(SIMPLE);
+    sensor.execute(tester);
+
+    Assertions.assertThat(logTester.logs()).contains("1/1 Rust files restored from the analysis cache");
+    assertEquals((Integer) 2, tester.measure(simple.key(), CoreMetrics.FUNCTIONS).value());
+    assertEquals(Collections.singletonList(TypeOfText.KEYWORD), tester.highlightingTypeAt(simple.key(), 1, 1));
+  }
+
+  @Test
+  void changedRulesInvalidateAnalysisCache(@TempDir Path cacheDirectory) throws IOException {
+    tester.settings().setProperty(CommunityRustPlugin.ANALYSIS_CACHE_PATH, cacheDirectory.toString());
+    addInputFile(SIMPLE);
+    sensor.execute(tester);
+
+    init();
+    tester.settings().setProperty(CommunityRustPlugin.ANALYSIS_CACHE_PATH, cacheDirectory.toString());
+    tester.setActiveRules(new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder().setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, "LineLength")).build())
+      .build());
+    addInputFile(SIMPLE);
+    sensor.execute(tester);
+
+    Assertions.assertThat(logTester.logs()).contains("0/1 Rust files restored from the analysis cache");
+    // the entry of the previous rules is removed
+    Assertions.assertThat(cacheDirectory.toFile().list()).hasSize(1);
+  }
+
+  @Test
+  void largeFilesAreOnlyTokenized() throws IOException {
+    tester.settings().setProperty(CommunityRustPlugin.ANALYSIS_MAX_FILE_SIZE, 1);
+    sensor = new RustSensor(lineLengthCheckFactory(20), fileLinesContextFactory, analysisWarnings);
+    DefaultInputFile inputFile = executeSensorOnSingleFile("sensor/cpd.rs");
+
+    Assertions.assertThat(tester.measure(inputFile.key(), CoreMetrics.NCLOC)).isNotNull();
+    Assertions.assertThat(tester.measure(inputFile.key(), CoreMetrics.COMMENT_LINES)).isNotNull();
+    Assertions.assertThat(tester.measure(inputFile.key(), CoreMetrics.STATEMENTS)).isNull();
+    Assertions.assertThat(tester.measure(inputFile.key(), CoreMetrics.FUNCTIONS)).isNull();
+    assertEquals(212, tester.cpdTokens(inputFile.key()).size());
+    assertEquals(Collections.singletonList(TypeOfText.ANNOTATION), tester.highlightingTypeAt(inputFile.key(), 5, 5));
+    Assertions.assertThat(tester.allIssues()).isNotEmpty();
+    Assertions.assertThat(tester.allAnalysisErrors()).isEmpty();
+    verify(analysisWarnings).addUnique(contains("sensor/cpd.rs is larger than 1 KB"));
+  }
+
+  @Test
+  void warningsAreOnlyLoggedWithoutAnalysisWarnings() throws IOException {
+    tester.settings().setProperty(CommunityRustPlugin.ANALYSIS_MAX_FILE_SIZE, 1);
+    sensor = new RustSensor(lineLengthCheckFactory(20), fileLinesContextFactory);
+    DefaultInputFile inputFile = executeSensorOnSingleFile("sensor/cpd.rs");
+
+    Assertions.assertThat(tester.measure(inputFile.key(), CoreMetrics.NCLOC)).isNotNull();
+    Assertions.assertThat(logTester.logs().stream().anyMatch(log -> log.contains("sensor/cpd.rs is larger than 1 KB"))).isTrue();
+  }
+
+  @Test
+  void smallFilesAreParsed() throws IOException {
+    tester.settings().setProperty(CommunityRustPlugin.ANALYSIS_MAX_FILE_SIZE, 1);
+    DefaultInputFile inputFile = executeSensorOnSingleFile(SIMPLE);
+
+    assertEquals((Integer) 4, tester.measure(inputFile.key(), CoreMetrics.STATEMENTS).value());
+    verify(analysisWarnings, times(0)).addUnique(any());
+  }
+
+  @Test
+  void largeFilesAreSplitIntoItems() throws IOException {
+    tester.settings().setProperty(CommunityRustPlugin.ANALYSIS_SPLIT_FILE_SIZE, 1);
+    String content = new String(Files.readAllBytes(new File(dir, SIMPLE).toPath()), StandardCharsets.UTF_8).repeat(200);
+    DefaultInputFile inputFile = new TestInputFileBuilder(tester.module().key(), "large.rs")
+      .setModuleBaseDir(tester.fileSystem().baseDirPath())
+      .setType(InputFile.Type.MAIN)
+      .setLanguage(RustLanguage.KEY)
+      .setCharset(StandardCharsets.UTF_8)
+      .setContents(content)
+      .build();
+    tester.fileSystem().add(inputFile);
+    sensor.execute(tester);
+
+    assertEquals((Integer) 800, tester.measure(inputFile.key(), CoreMetrics.STATEMENTS).value());
+    assertEquals((Integer) 400, tester.measure(inputFile.key(), CoreMetrics.FUNCTIONS).value());
+    Assertions.assertThat(tester.allAnalysisErrors()).isEmpty();
+    verify(analysisWarnings, times(0)).addUnique(any());
+  }
+
+  @Test
+  void keywordsHighlightedByType() {
+    DefaultInputFile inputFile = new TestInputFileBuilder(tester.module().key(), "keywords.rs")
+      .setModuleBaseDir(tester.fileSystem().baseDirPath())
+      .setType(InputFile.Type.MAIN)
+      .setLanguage(RustLanguage.KEY)
+      .setCharset(StandardCharsets.UTF_8)
+      .setContents("fn main() {\n    let Done = r#match && true;\n}\n")
+      .build();
+    tester.fileSystem().add(inputFile);
+
+    sensor.execute(tester);
+
+    assertEquals(Collections.singletonList(TypeOfText.KEYWORD), tester.highlightingTypeAt(inputFile.key(), 2, 4));
+    assertEquals(Collections.emptyList(), tester.highlightingTypeAt(inputFile.key(), 2, 15));
+    Assertions.assertThat(tester.highlightingTypeAt(inputFile.key(), 2, 28)).containsOnly(TypeOfText.KEYWORD, TypeOfText.CONSTANT);
+    Assertions.assertThat(tester.cpdTokens(inputFile.key()).get(1).getValue()).isEqualTo("letdone=r#match&&true;");
+  }
+
+  @Test
+  void parseTimeoutFallsBackToTokens() throws IOException {
+    String content = new String(Files.readAllBytes(new File(dir, SIMPLE).toPath()), StandardCharsets.UTF_8).repeat(100);
+    DefaultInputFile inputFile = new TestInputFileBuilder(tester.module().key(), "large.rs")
+      .setModuleBaseDir(tester.fileSystem().baseDirPath())
+      .setType(InputFile.Type.MAIN)
+      .setLanguage(RustLanguage.KEY)
+      .setCharset(StandardCharsets.UTF_8)
+      .setContents(content)
+      .build();
+    var parserConfiguration = RustParserConfiguration.builder()
+      .setCharset(StandardCharsets.UTF_8)
+      .setParseTimeout(Duration.ofNanos(1))
+      .build();
+    var checks = lineLengthCheckFactory(20).<RustCheck>create(CheckList.REPOSITORY_KEY)
+      .addAnnotatedChecks(CheckList.getRustChecks());
+    var parser = new RustParserPool(parserConfiguration);
+    var analyzer = new RustFileAnalyzer(tester, parserConfiguration, parser, null, new RustRecoveringParser(parserConfiguration),
+      checks, RustAnalysisCache.create(tester));
+    RustFileAnalysis analysis = analyzer.analyze(inputFile);
+
+    Assertions.assertThat(analysis.parseError()).isNull();
+    Assertions.assertThat(analysis.warning()).contains("Parsing of Rust file large.rs was aborted");
+    Assertions.assertThat(analysis.issues()).isNotEmpty();
+  }
+
+  private List<String> issueMessages() {
+    return tester.allIssues().stream()
+      .map(issue -> issue.primaryLocation().inputComponent().key() + ":" + issue.primaryLocation().textRange() + ":" + issue.primaryLocation().message())
+      .sorted()
+      .collect(Collectors.toList());
+  }
+
+  private static class InMemoryCache implements ReadCache, WriteCache {
+    private final Map<String, byte[]> entries = new HashMap<>();
+    private final List<String> copiedFromPrevious = new ArrayList<>();
+
+    @Override
+    public InputStream read(String key) {
+      return new ByteArrayInputStream(entries.get(key));
+    }
+
+    @Override
+    public boolean contains(String key) {
+      return entries.containsKey(key);
+    }
+
+    @Override
+    public void write(String key, InputStream data) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void write(String key, byte[] data) {
+      entries.put(key, data);
+    }
+
+    @Override
+    public void copyFromPrevious(String key) {
+      copiedFromPrevious.add(key);
+    }
+  }
+
   @Test
   void two_files_without_cancellation() throws Exception {
     DefaultInputFile file1 = addInputFile(LIBFILE);
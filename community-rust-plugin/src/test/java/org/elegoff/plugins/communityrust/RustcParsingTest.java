@@ -36,6 +36,7 @@ import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.measures.FileLinesContext;
 import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.notifications.AnalysisWarnings;
 
 
 import static org.mockito.ArgumentMatchers.any;
@@ -60,7 +61,7 @@ class RustcParsingTest {
     when(fileLinesContextFactory.createFor(any(InputFile.class))).thenReturn(fileLinesContext);
     ActiveRulesBuilder activeRuleBuilder = new ActiveRulesBuilder();
     CheckFactory checkFactory = new CheckFactory(activeRuleBuilder.build());
-    sensor = new RustSensor(checkFactory, fileLinesContextFactory);
+    sensor = new RustSensor(checkFactory, fileLinesContextFactory, mock(AnalysisWarnings.class));
   }
 
   private DefaultInputFile addInputFile(String fileName) throws IOException {
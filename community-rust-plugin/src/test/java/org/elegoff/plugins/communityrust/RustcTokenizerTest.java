@@ -0,0 +1,109 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.plugins.communityrust;
+
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.sonar.rust.RustLexer;
+import org.sonar.rust.RustParserConfiguration;
+import org.sonar.rust.RustSourceTokenizer;
+import org.sonar.rust.api.RustKeyword;
+import org.sonar.rust.api.RustPunctuator;
+import org.sonar.rust.api.RustTokenType;
+import org.sonar.sslr.parser.LexerlessGrammar;
+import org.sonar.sslr.parser.ParserAdapter;
+
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the tokenizer backing {@link RustLexer#create(RustParserConfiguration)} and the grammar agree on the
+ * tokens of the rustc sources.
+ */
+class RustcTokenizerTest {
+
+  private static final String UNTYPED = "TOKEN";
+  private static final List<String> KEYWORDS = Arrays.asList(RustKeyword.keywordValues());
+
+  private final ParserAdapter<LexerlessGrammar> grammarLexer = new ParserAdapter<>(StandardCharsets.UTF_8, RustLexer.create().build());
+  private final RustSourceTokenizer lexer = RustLexer.create(RustParserConfiguration.builder()
+    .setCharset(StandardCharsets.UTF_8)
+    .build());
+
+  @Test
+  void sameTokensAsGrammar() throws IOException {
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(Paths.get("src/test/resources/rustc"))) {
+      files = paths.filter(path -> path.toString().endsWith(".rs")).collect(Collectors.toList());
+    }
+    assertThat(files).isNotEmpty();
+
+    for (Path file : files) {
+      String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+      List<Token> tokens = lexer.tokenize(content);
+      assertThat(describe(tokens))
+        .as(file.toString())
+        .isEqualTo(describe(grammarLexer.parse(content).getTokens()));
+      for (Token token : tokens) {
+        if (token.getType() instanceof RustKeyword || token.getType() instanceof RustPunctuator) {
+          assertThat(token.getValue()).as(file + ":" + token.getLine()).isEqualTo(token.getType().getValue());
+        } else if (token.getType() == RustTokenType.IDENTIFIER) {
+          assertThat(KEYWORDS).as(file + ":" + token.getLine()).doesNotContain(token.getValue());
+        }
+      }
+    }
+  }
+
+  private static List<String> describe(List<Token> tokens) {
+    return tokens.stream().map(RustcTokenizerTest::describe).collect(Collectors.toList());
+  }
+
+  /**
+   * Keywords and punctuators are typed by the tokenizer only, and are described with the type given by the grammar.
+   */
+  private static String describe(Token token) {
+    String type = token.getType().getName();
+    if (token.getType() instanceof RustKeyword) {
+      type = RustTokenType.IDENTIFIER.getName();
+    } else if (token.getType() instanceof RustPunctuator) {
+      type = UNTYPED;
+    }
+    StringBuilder sb = new StringBuilder()
+      .append(type).append(' ')
+      .append(token.getValue()).append(' ')
+      .append(token.getLine()).append(':').append(token.getColumn());
+    for (Trivia trivia : token.getTrivia()) {
+      sb.append(" [").append(describe(trivia.getToken())).append(']');
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Community Rust Plugin
+ * Copyright (C) 2021-2025 Vladimir Shelkovnikov
+ * mailto:community-rust AT pm DOT me
+ * http://github.com/C4tWithShell/community-rust
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.elegoff.plugins.communityrust;
+
+import com.sonar.sslr.api.Token;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.sonar.rust.RustTokenizer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UnitTestRegionsTest {
+
+  private static final Set<String> ATTRIBUTES = Set.of("test", "tokio::test");
+
+  @Test
+  void testFunctions() {
+    assertThat(unitTestCode("fn a() {}\n#[test]\nfn b() { if x { y(); } }\nfn c() {}"))
+      .isEqualTo("#[test]fnb(){ifx{y();}}");
+  }
+
+  @Test
+  void multiSegmentAttributes() {
+    assertThat(unitTestCode("#[tokio::test]\nasync fn a() { b().await; }\nfn c() {}"))
+      .isEqualTo("#[tokio::test]asyncfna(){b().await;}");
+    assertThat(unitTestCode("#[tokio::test(flavor = \"multi_thread\")]\nasync fn a() {}\nfn c() {}"))
+      .isEqualTo("#[tokio::test(flavor=\"multi_thread\")]asyncfna(){}");
+  }
+
+  @Test
+  void testModules() {
+    assertThat(unitTestCode("fn a() {}\n#[cfg(test)]\nmod tests {\n  #[test]\n  fn b() {}\n}\nfn c() {}"))
+      .isEqualTo("#[cfg(test)]modtests{#[test]fnb(){}}");
+    assertThat(unitTestCode("#[cfg(test)]\nmod tests;\nfn c() {}"))
+      .isEqualTo("#[cfg(test)]modtests;");
+  }
+
+  @Test
+  void severalAttributes() {
+    assertThat(unitTestCode("#[test]\n#[should_panic]\nfn a() -> [u8; 2] { [1; 2] }\nfn c() {}"))
+      .isEqualTo("#[test]#[should_panic]fna()->[u8;2]{[1;2]}");
+  }
+
+  @Test
+  void otherAttributes() {
+    assertThat(unitTestCode("#[cfg(not(test))]\nfn a() {}\n#[derive(Debug)]\nstruct S;\n#[inline]\nfn b() {}\n#[testing]\nfn c() {}"))
+      .isEmpty();
+  }
+
+  @Test
+  void unterminated() {
+    assertThat(unitTestCode("#[test]\nfn a() {")).isEqualTo("#[test]fna(){");
+    assertThat(unitTestCode("#[test")).isEqualTo("#[test");
+  }
+
+  private static String unitTestCode(String source) {
+    List<Token> tokens = new RustTokenizer().tokenize(source);
+    UnitTestRegions regions = UnitTestRegions.of(tokens, ATTRIBUTES);
+    List<String> values = new ArrayList<>();
+    for (int i = 0; i < tokens.size(); i++) {
+      if (regions.contains(i)) {
+        values.add(tokens.get(i).getValue());
+      }
+    }
+    return String.join("", values);
+  }
+
+}
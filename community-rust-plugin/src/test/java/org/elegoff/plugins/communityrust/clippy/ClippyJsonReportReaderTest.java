@@ -20,16 +20,13 @@
  */
 package org.elegoff.plugins.communityrust.clippy;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.Test;
-import org.sonarsource.analyzer.commons.internal.json.simple.JSONArray;
-import org.sonarsource.analyzer.commons.internal.json.simple.JSONObject;
-import org.sonarsource.analyzer.commons.internal.json.simple.parser.JSONParser;
-import org.sonarsource.analyzer.commons.internal.json.simple.parser.ParseException;
 
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -37,50 +34,58 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.fest.assertions.Assertions.assertThat;
 
 class ClippyJsonReportReaderTest {
-  private final JSONParser jsonParser = new JSONParser();
 
   @Test
   void noReportProvided() {
-    assertThatThrownBy(() -> {
-      InputStream in = ClippyJsonReportReader.toJSON(null);
-    }).isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> ClippyJsonReportReader.read((File) null, issue -> {
+    })).isInstanceOf(IOException.class);
   }
 
   @Test
   void invalidReportPathProvided() {
-    assertThatThrownBy(() -> {
-      InputStream in = ClippyJsonReportReader.toJSON(new File("invalid.txt"));
-    }).isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> ClippyJsonReportReader.read(new File("invalid.txt"), issue -> {
+    })).isInstanceOf(IOException.class);
   }
 
   @Test
-  void emptyReport() {
-    File empty = this.getFileFromResources("clippy/empty-report.txt");
-    InputStream in = null;
-    try {
-      in = ClippyJsonReportReader.toJSON(empty);
-      assertThat(in).isNotNull();
-      assertThat(isValidJsonReport(in)).isTrue();
-      in = ClippyJsonReportReader.toJSON(empty);
-      assertThat(issueCount(in)).isZero();
-    } catch (IOException e) {
-      throw new IllegalStateException(e);
-    }
+  void emptyReport() throws IOException {
+    assertThat(read(getFileFromResources("clippy/empty-report.txt"))).isEmpty();
   }
 
   @Test
-  void validReport() {
-    File report = this.getFileFromResources("clippy/catboard.txt");
-    InputStream in = null;
-    try {
-      in = ClippyJsonReportReader.toJSON(report);
-      assertThat(in).isNotNull();
-      assertThat(isValidJsonReport(in)).isTrue();
-      in = ClippyJsonReportReader.toJSON(report);
-      assertThat(issueCount(in)).isEqualTo(278);
-    } catch (IOException e) {
-      throw new IllegalStateException(e);
-    }
+  void validReport() throws IOException {
+    List<ClippyJsonReportReader.ClippyIssue> issues = read(getFileFromResources("clippy/catboard.txt"));
+    assertThat(issues).hasSize(278);
+    assertThat(issues.get(0).ruleKey).isNotNull();
+    assertThat(issues.get(0).filePath).isNotNull();
+  }
+
+  @Test
+  void invalidLinesAreIgnored() throws IOException {
+    String report = "   Compiling foo v0.1.0\n" +
+      "{\"reason\":\"compiler-message\",\"message\":{\"code\":{\"code\":\"clippy::needless_return\"},\"level\":\"warning\"," +
+      "\"message\":\"unneeded `return` statement\",\"spans\":[{\"file_name\":\"src/main.rs\",\"line_start\":3," +
+      "\"line_end\":3,\"column_start\":5,\"column_end\":14}],\"children\":[]}}\n" +
+      "{\"reason\":\"compiler-message\",\"message\":{\"code\":\n" +
+      "{\"reason\":\"compiler-message\" \"message\"}\n" +
+      "{\"reason\":\"build-finished\",\"success\":true}\n";
+    List<ClippyJsonReportReader.ClippyIssue> issues = new ArrayList<>();
+    ClippyJsonReportReader.read(new ByteArrayInputStream(report.getBytes(UTF_8)), issues::add);
+
+    assertThat(issues).hasSize(1);
+    ClippyJsonReportReader.ClippyIssue issue = issues.get(0);
+    assertThat(issue.ruleKey).isEqualTo("clippy::needless_return");
+    assertThat(issue.filePath).isEqualTo("src/main.rs");
+    assertThat(issue.message).isEqualTo("unneeded `return` statement");
+    assertThat(issue.lineNumberStart).isEqualTo(3);
+    assertThat(issue.colNumberEnd).isEqualTo(14);
+    assertThat(issue.severity).isEqualTo("warning");
+  }
+
+  private static List<ClippyJsonReportReader.ClippyIssue> read(File report) throws IOException {
+    List<ClippyJsonReportReader.ClippyIssue> issues = new ArrayList<>();
+    ClippyJsonReportReader.read(report, issues::add);
+    return issues;
   }
 
   private File getFileFromResources(String fileName) {
@@ -96,45 +101,4 @@ class ClippyJsonReportReaderTest {
 
   }
 
-  private boolean isValidJsonReport(InputStream in) {
-    JSONObject rootObject = null;
-    boolean res = false;
-    try {
-      rootObject = (JSONObject) jsonParser.parse(new InputStreamReader(in, UTF_8));
-
-      JSONArray results = (JSONArray) rootObject.get("results");
-      if (results != null)
-        return true;
-
-    } catch (ParseException | IOException e) {
-      throw new IllegalStateException(e);
-    }
-    return res;
-  }
-
-  private int issueCount(InputStream in) {
-    JSONObject rootObject = null;
-    int nbIssue = 0;
-    try {
-      rootObject = (JSONObject) jsonParser.parse(new InputStreamReader(in, UTF_8));
-
-      JSONArray results = (JSONArray) rootObject.get("results");
-      for (Object o : results) {
-        JSONObject jo = (JSONObject) o;
-        JSONObject message = (JSONObject) jo.get("message");
-        if (message == null) {
-          continue;
-        }
-        JSONArray spans = (JSONArray) message.get("spans");
-        if ((spans != null) && spans.size() > 0) {
-          nbIssue++;
-        }
-
-      }
-    } catch (ParseException | IOException e) {
-      throw new IllegalStateException(e);
-    }
-    return nbIssue;
-  }
-
 }
@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
+import org.elegoff.plugins.communityrust.language.RustLanguage;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.slf4j.event.Level;
@@ -100,7 +101,8 @@ class ClippySensorTest {
 
   private static String language(Path file) {
     String path = file.toString();
-    return path.substring(path.lastIndexOf('.') + 1);
+    String extension = path.substring(path.lastIndexOf('.') + 1);
+    return "rs".equals(extension) ? RustLanguage.KEY : extension;
   }
 
   public static String onlyOneLogElement(List<String> elements) {
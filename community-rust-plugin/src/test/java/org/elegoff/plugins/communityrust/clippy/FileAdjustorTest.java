@@ -23,6 +23,7 @@ package org.elegoff.plugins.communityrust.clippy;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import org.elegoff.plugins.communityrust.language.RustLanguage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
@@ -111,11 +112,32 @@ class FileAdjustorTest {
   @Test
   void should_return_handle_shorter_path() {
     assertThat(fileAdjustor.relativePath(path("foo", "bar", "FileAdjustor", "main.rs"))).isEqualTo("main.rs");
-    assertThat(fileAdjustor.relativePath(path("bar", "main.rs"))).isEqualTo(path("bar", "main.rs"));
+    assertThat(fileAdjustor.relativePath(path("bar", "main.rs"))).isEqualTo("main.rs");
+    assertThat(fileAdjustor.relativePath(path("bar", "unknown.rs"))).isEqualTo(path("bar", "unknown.rs"));
+  }
+
+  @Test
+  void should_resolve_crates_at_different_depths() {
+    context = SensorContextTester.create(PROJECT_DIR);
+    addInputFiles("app/src/main.rs", "libs/core/src/lib.rs", "libs/core/src/main.rs", "tools/gen/src/lib.rs");
+    fileAdjustor = FileAdjustor.create(context);
+
+    assertThat(fileAdjustor.inputFile("/home/ci/project/app/src/main.rs").relativePath()).isEqualTo("app/src/main.rs");
+    assertThat(fileAdjustor.inputFile("/home/ci/project/libs/core/src/lib.rs").relativePath()).isEqualTo("libs/core/src/lib.rs");
+    assertThat(fileAdjustor.inputFile("/home/ci/project/libs/core/src/main.rs").relativePath()).isEqualTo("libs/core/src/main.rs");
+    assertThat(fileAdjustor.inputFile("C:\\ci\\project\\tools\\gen\\src\\lib.rs").relativePath()).isEqualTo("tools/gen/src/lib.rs");
+    // relative to the workspace of a crate
+    assertThat(fileAdjustor.inputFile("gen/src/lib.rs").relativePath()).isEqualTo("tools/gen/src/lib.rs");
+    // ambiguous
+    assertThat(fileAdjustor.inputFile("src/lib.rs")).isNull();
+    assertThat(fileAdjustor.inputFile("/home/ci/project/other/src/build.rs")).isNull();
   }
 
   private void addInputFiles(String... paths) {
-    Arrays.stream(paths).forEach(path -> context.fileSystem().add(TestInputFileBuilder.create(MODULE_KEY, path).build()));
+    Arrays.stream(paths).forEach(path -> context.fileSystem().add(new TestInputFileBuilder(MODULE_KEY, path)
+      .setModuleBaseDir(PROJECT_DIR)
+      .setLanguage(RustLanguage.KEY)
+      .build()));
   }
 
   private static String path(String first, String... more) {
@@ -177,6 +177,28 @@ class LCOVSensorTest {
     assertThat(logTester.logs(Level.WARN)).contains("Found 3 inconsistencies in coverage report");
   }
 
+  @Test
+  void should_ignore_files_of_other_languages() throws Exception {
+    Path lcovFile = Files.createFile(tmpDir.resolve("other_languages.lcov"));
+    Files.write(lcovFile,
+      ("SF:file1.rs\n" +
+        "DA:1,2\n" +
+        "end_of_record\n" +
+        "SF:other.js\n" +
+        "DA:1,2\n" +
+        "end_of_record\n" +
+        "SF:file1.rs\n" +
+        "DA:1,3\n" +
+        "end_of_record\n").getBytes(StandardCharsets.UTF_8));
+    settings.setProperty(CommunityRustPlugin.LCOV_REPORT_PATHS, lcovFile.toAbsolutePath().toString());
+    context.fileSystem().add(new TestInputFileBuilder("moduleKey", "other.js").setLanguage("js").setLines(1).build());
+    coverageSensor.execute(context);
+
+    assertThat(context.lineHits("moduleKey:file1.rs", 1)).isEqualTo(5);
+    assertThat(context.lineHits("moduleKey:other.js", 1)).isNull();
+    assertThat(logTester.logs(Level.WARN)).isEmpty();
+  }
+
   @Test
   void sensor_descriptor() {
     DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor();